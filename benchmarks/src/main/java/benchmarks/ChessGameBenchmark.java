@@ -0,0 +1,198 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveCache;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the hot methods of the rules engine in each position.
+ * <p>
+ * Games share one move cache across the JVM and remember answers for their own position, so after warmup
+ * the plain ChessGame benchmarks measure the cached path that a busy server sees. The cold benchmarks run
+ * the same queries on fresh games in positions nothing has seen yet, with the shared move cache emptied,
+ * so they measure the engine itself. The perft benchmark goes through the move generator directly and
+ * measures raw generation speed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+    //games the batched benchmarks work through per call, so each call runs long enough to time on its own
+    private static final int BATCH = 64;
+
+    @Param
+    private Positions position;
+
+    private ChessGame game;
+    private final ChessGame fenGame = new ChessGame();
+    private List<ChessPosition> pieces;
+
+    /**
+     * Copies of the benchmark position for makeMove, which changes every game it is given
+     */
+    @State(Scope.Thread)
+    public static class MoveBatch {
+        private final ChessGame[] games = new ChessGame[BATCH];
+
+        @Setup(Level.Invocation)
+        public void setUp(ChessGameBenchmark benchmark) {
+            for (int i = 0; i < BATCH; i++) {
+                games[i] = benchmark.position.newGame();
+            }
+        }
+    }
+
+    /**
+     * Fresh games in distinct positions near the benchmark position, built again for every call with the
+     * shared move cache emptied, so nothing remembered by a game or the cache can answer a query
+     */
+    @State(Scope.Thread)
+    public static class ColdBatch {
+        private String[] fens;
+        private ChessMove[] moves;
+        private List<List<ChessPosition>> pieces;
+        private final ChessGame[] games = new ChessGame[BATCH];
+
+        @Setup(Level.Trial)
+        public void setUpPositions(ChessGameBenchmark benchmark) {
+            fens = benchmark.position.nearby(BATCH);
+            moves = new ChessMove[BATCH];
+            pieces = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                ChessGame nearby = Fen.parse(fens[i]);
+                moves[i] = nearby.legalMoveIterator(nearby.getTeamTurn()).next();
+                pieces.add(piecesToMove(nearby));
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            for (int i = 0; i < BATCH; i++) {
+                games[i] = Fen.parse(fens[i]);
+            }
+            MoveCache.shared().clear();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = position.newGame();
+        pieces = piecesToMove(game);
+    }
+
+    /**
+     * @return the squares of every piece belonging to the team to move
+     */
+    private static List<ChessPosition> piecesToMove(ChessGame game) {
+        List<ChessPosition> pieces = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    pieces.add(new ChessPosition(row, col));
+                }
+            }
+        }
+        return pieces;
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition piece : pieces) {
+            blackhole.consume(game.validMoves(piece));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void validMovesCold(ColdBatch batch, Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            for (ChessPosition piece : batch.pieces.get(i)) {
+                blackhole.consume(batch.games[i].validMoves(piece));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        return game.isValidMove(position.move());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void isValidMoveCold(ColdBatch batch, Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(batch.games[i].isValidMove(batch.moves[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void makeMove(MoveBatch batch) throws InvalidMoveException {
+        ChessMove move = position.move();
+        for (ChessGame moveGame : batch.games) {
+            moveGame.makeMove(move);
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void isInCheckCold(ColdBatch batch, Blackhole blackhole) {
+        for (ChessGame cold : batch.games) {
+            blackhole.consume(cold.isInCheck(cold.getTeamTurn()));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void isInCheckmateCold(ColdBatch batch, Blackhole blackhole) {
+        for (ChessGame cold : batch.games) {
+            blackhole.consume(cold.isInCheckmate(cold.getTeamTurn()));
+        }
+    }
+
+    @Benchmark
+    public ChessBoard copy() {
+        return game.getBoard().copy();
+    }
+
+    @Benchmark
+    public ChessGame parseFen() {
+        Fen.parseInto(position.fen(), fenGame);
+        return fenGame;
+    }
+
+    @Benchmark
+    public String toFen() {
+        return game.toFen();
+    }
+
+    @Benchmark
+    public long perft() {
+        return new Perft(game).perft(3);
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import serialization.Serializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks turning a game into JSON and back with the shared Gson, the way the server sends games to clients
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonBenchmark {
+    @Param
+    private Positions position;
+
+    private final Gson gson = Serializer.GSON;
+    private ChessGame game;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = position.newGame();
+        json = gson.toJson(game);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame roundTrip() {
+        return gson.fromJson(gson.toJson(game), ChessGame.class);
+    }
+}
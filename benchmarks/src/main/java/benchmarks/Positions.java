@@ -0,0 +1,83 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+
+import java.util.Iterator;
+
+/**
+ * The positions every benchmark runs against, one from each phase of a game, along with a legal
+ * move to make in each.
+ */
+public enum Positions {
+    OPENING(Fen.START, 2, 5, 4, 5),
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 1", 3, 3, 5, 4),
+    ENDGAME("8/8/4k3/8/2p5/8/1P2K3/7R w - - 0 1", 1, 8, 6, 8);
+
+    private final String fen;
+    private final ChessMove move;
+
+    Positions(String fen, int startRow, int startCol, int endRow, int endCol) {
+        this.fen = fen;
+        this.move = new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol));
+    }
+
+    /**
+     * @return a new game set up in this position
+     */
+    public ChessGame newGame() {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return this position as a FEN string
+     */
+    public String fen() {
+        return fen;
+    }
+
+    /**
+     * Finds positions two plies on from this one, so the same team is to move and the position is from the
+     * same phase of the game, but no two of them are alike
+     *
+     * @param count how many positions to find
+     * @return the positions as FEN strings
+     */
+    public String[] nearby(int count) {
+        String[] found = new String[count];
+        int size = 0;
+        ChessGame start = newGame();
+        Iterator<ChessMove> firsts = start.legalMoveIterator(start.getTeamTurn());
+        while (firsts.hasNext() && size < count) {
+            ChessGame afterFirst = play(fen, firsts.next());
+            Iterator<ChessMove> replies = afterFirst.legalMoveIterator(afterFirst.getTeamTurn());
+            while (replies.hasNext() && size < count) {
+                found[size++] = play(afterFirst.toFen(), replies.next()).toFen();
+            }
+        }
+        if (size < count) {
+            throw new IllegalStateException("Only " + size + " positions two plies on from " + this);
+        }
+        return found;
+    }
+
+    private static ChessGame play(String fen, ChessMove move) {
+        ChessGame game = Fen.parse(fen);
+        try {
+            game.makeMove(move);
+        } catch (InvalidMoveException ex) {
+            throw new IllegalStateException("Generated move was not legal: " + move, ex);
+        }
+        return game;
+    }
+
+    /**
+     * @return a legal move for the side to move in this position
+     */
+    public ChessMove move() {
+        return move;
+    }
+}
@@ -1,14 +1,17 @@
 package dataaccess;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
+import chess.ChessGameCodec;
 import model.AuthData;
 import model.GameData;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
 import model.JoinRequest;
+import serialization.Serializer;
 import service.ChessException;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
@@ -168,14 +171,14 @@ public class SQLDataAccess implements DataAccess {
     public GameData createGame(GameData game) throws ChessException {
         var gameName = game.gameName();
         var newGame = new ChessGame();
-        var json = new Gson().toJson(newGame);
+        var encoded = ChessGameCodec.encode(newGame);
         int gameID = 0;
         var statement = "INSERT INTO games (gameName, game) VALUES(?, ?)";
 
         try (var conn = DatabaseManager.getConnection()) {
             try (var ps = conn.prepareStatement(statement, RETURN_GENERATED_KEYS)) {
                 ps.setString(1, gameName);
-                ps.setString(2, json);
+                ps.setBytes(2, encoded);
 
                 ps.executeUpdate();
                 var rs = ps.getGeneratedKeys();
@@ -214,11 +217,19 @@ public class SQLDataAccess implements DataAccess {
         var white = rs.getString("whiteUsername");
         var black = rs.getString("blackUsername");
         var gameName = rs.getString("gameName");
-        var json = rs.getString("game");
-        var game = new Gson().fromJson(json, ChessGame.class);
+        var game = decodeGame(rs.getBytes("game"));
         return new GameData(gameID, white, black, gameName, game);
     }
 
+    private ChessGame decodeGame(byte[] stored) {
+        //games saved before the binary encoding are JSON objects, which always start with a brace. The shared
+        //Gson reads their nested 8x8 board arrays, which reflective Gson can no longer map onto ChessBoard
+        if (stored.length > 0 && stored[0] == '{') {
+            return Serializer.GSON.fromJson(new String(stored, StandardCharsets.UTF_8), ChessGame.class);
+        }
+        return ChessGameCodec.decode(stored);
+    }
+
     @Override
     public void joinGame(JoinRequest request, String username) throws ChessException {
         var gameID = request.gameID();
@@ -302,13 +313,30 @@ public class SQLDataAccess implements DataAccess {
               gameName varchar(256) NOT NULL,
               whiteUsername varchar(256),
               blackUsername varchar(256),
-              game TEXT NOT NULL,
+              game BLOB NOT NULL,
               PRIMARY KEY (id),
               INDEX(gameName)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
             """
     };
 
+    //tables made before games were stored in binary hold them in a TEXT column, which is switched to a BLOB.
+    //the JSON already in it is kept byte for byte and still read by decodeGame
+    private void migrateGameColumn(Connection conn) throws SQLException {
+        var statement = "SELECT DATA_TYPE FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA=DATABASE() AND TABLE_NAME='games' AND COLUMN_NAME='game'";
+        try (var ps = conn.prepareStatement(statement)) {
+            try (var rs = ps.executeQuery()) {
+                if (!rs.next() || !rs.getString(1).equalsIgnoreCase("text")) {
+                    return;
+                }
+            }
+        }
+        try (var ps = conn.prepareStatement("ALTER TABLE games MODIFY game BLOB NOT NULL")) {
+            ps.executeUpdate();
+        }
+    }
+
     private void configureDatabase() throws DataAccessException {
         DatabaseManager.createDatabase();
         try (var conn = DatabaseManager.getConnection()) {
@@ -317,6 +345,7 @@ public class SQLDataAccess implements DataAccess {
                     preparedStatement.executeUpdate();
                 }
             }
+            migrateGameColumn(conn);
         } catch (SQLException ex) {
             throw new DataAccessException("Unable to create configure database");
         }
@@ -1,12 +1,13 @@
 package server;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import dataaccess.DataAccessException;
 import dataaccess.SQLDataAccess;
 import model.GameData;
 import model.JoinRequest;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
+import serialization.Serializer;
 import service.ChessException;
 import service.Service;
 import spark.*;
@@ -15,7 +16,6 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class Server {
-    private final Gson serializer = new Gson();
     //private final Service service = new Service(new MemoryDataAccess());
     private Service service;
 
@@ -51,19 +51,19 @@ public class Server {
 
     private Object joinGame(Request request, Response response) throws ChessException {
         var authToken = request.headers("Authorization");
-        var joinRequest = new Gson().fromJson(request.body(), JoinRequest.class);
+        var joinRequest = Serializer.GSON.fromJson(request.body(), JoinRequest.class);
 
         if (joinRequest.gameID() == null || joinRequest.playerColor() == null) {
             throw new ChessException("bad request", 400);
         }
 
         service.joinGame(authToken, joinRequest);
-        return new Gson().toJson(null);
+        return Serializer.GSON.toJson(null);
     }
 
     private Object createGame(Request request, Response response) throws ChessException {
         var authToken = request.headers("Authorization");
-        var game = new Gson().fromJson(request.body(), GameData.class);
+        var game = Serializer.GSON.fromJson(request.body(), GameData.class);
 
         if (game.gameName() == null) {
             throw new ChessException("bad request", 400);
@@ -71,41 +71,41 @@ public class Server {
 
         var createdGame = service.createGame(authToken, game);
 
-        return new Gson().toJson(createdGame);
+        return Serializer.GSON.toJson(createdGame);
     }
 
     private Object getGames(Request request, Response response) throws ChessException {
         var authToken = request.headers("Authorization");
 
         var gameList = service.listGames(authToken);
-        return new Gson().toJson(Map.of("games", gameList));
+        return Serializer.GSON.toJson(Map.of("games", gameList));
     }
 
     private Object logoutUser(Request request, Response response) throws ChessException {
         var authToken = request.headers("Authorization");
 
         service.logoutUser(authToken);
-        return serializer.toJson(null);
+        return Serializer.GSON.toJson(null);
     }
 
     private Object loginUser(Request request, Response response) throws ChessException {
-        var user = new Gson().fromJson(request.body(), UserData.class);
+        var user = Serializer.GSON.fromJson(request.body(), UserData.class);
 
         if (user.username() == null || user.password() == null) {
             throw new ChessException("bad request", 400);
         }
         user = new UserData(user.username(), user.password(), user.email());
         var userAuth = service.loginUser(user);
-        return new Gson().toJson(userAuth);
+        return Serializer.GSON.toJson(userAuth);
     }
 
     private Object clear(Request request, Response response) throws ChessException {
         service.clear();
-        return serializer.toJson(new HashMap<>());
+        return Serializer.GSON.toJson(new HashMap<>());
     }
 
     private Object registerUser(Request request, Response response) throws ChessException {
-        var user = new Gson().fromJson(request.body(), UserData.class);
+        var user = Serializer.GSON.fromJson(request.body(), UserData.class);
 
         if (user.username() == null || user.password() == null || user.email() == null) {
             throw new ChessException("bad request", 400);
@@ -115,7 +115,7 @@ public class Server {
         user = new UserData(user.username(), hashedPassword, user.email());
         var userAuth = service.registerUser(user);
 
-        return serializer.toJson(userAuth);
+        return Serializer.GSON.toJson(userAuth);
     }
 
     private void exceptionHandler(Exception ex, Request req, Response res) {
@@ -123,10 +123,13 @@ public class Server {
             res.status(((ChessException) ex).getStatus());
             String returnMessage = "Error: " + ex.getMessage();
             Map<String, String> body = Map.of("message", returnMessage);
-            res.body(serializer.toJson(body));
+            res.body(Serializer.GSON.toJson(body));
+        } else if (ex instanceof JsonParseException) {
+            res.status(400);
+            res.body(Serializer.GSON.toJson(Map.of("message", "Error: bad request")));
         } else {
             res.status(500);
-            res.body(serializer.toJson(Map.of("message", "Error: (description of error)")));
+            res.body(Serializer.GSON.toJson(Map.of("message", "Error: (description of error)")));
         }
     }
 
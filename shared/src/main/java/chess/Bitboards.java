@@ -0,0 +1,242 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit square sets.
+ * <p>
+ * Squares are indexed 0 to 63, starting at row 1 column 1 and moving across
+ * each row before moving up a row, so bit (row - 1) * 8 + (column - 1) of a
+ * bitboard stands for that position.
+ */
+final class Bitboards {
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long NOT_FILE_A = ~FILE_A;
+    static final long NOT_FILE_H = ~FILE_H;
+    static final long NOT_FILE_AB = ~(FILE_A | FILE_A << 1);
+    static final long NOT_FILE_GH = ~(FILE_H | FILE_H >>> 1);
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_8 = RANK_1 << 56;
+    //squares of the same color as row 1 column 2
+    static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    //squares strictly between two squares that share a row, column or diagonal, otherwise empty
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+    //magic numbers for each square, found once by trying random sparse numbers until one sent every blocker
+    //arrangement needing different attacks to a different slot, so startup only has to fill the tables
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0xA080001820400080L, 0x0040002000401000L, 0x0180300160008008L, 0x0480040800801001L,
+            0x2A00081084204200L, 0x0480018012003400L, 0x0600010082000428L, 0x420002250C018042L,
+            0x0040800040002080L, 0x000040002000500CL, 0x2002004022001080L, 0x0026002200400810L,
+            0x2000808008000400L, 0x0022000200883104L, 0x2C88808001000200L, 0x1112000080420104L,
+            0x0100908000400020L, 0x0080808020004000L, 0x0008410010200300L, 0x0014808010000801L,
+            0x0080050011004800L, 0x00D1010002080400L, 0x3221540021080210L, 0x1000120005288244L,
+            0x020C400080248002L, 0x4020411200220082L, 0x8028100080200881L, 0x1210001100090020L,
+            0x005A005200084520L, 0x0080040080020080L, 0x00D6002200280401L, 0x440B210A00006884L,
+            0x0880401028800080L, 0x2000802008804000L, 0x2160001041002900L, 0x0800080080801000L,
+            0x0444820400800800L, 0x0000040080800200L, 0x0080028104001028L, 0x2808104102000894L,
+            0x0000800100450024L, 0x0000408102020020L, 0x2000200100110044L, 0x0110040008004040L,
+            0x0000080005010010L, 0x0002001088120044L, 0x0008100208040001L, 0x000100008045002AL,
+            0x0001002040800100L, 0x1602209200490200L, 0x1109100020008880L, 0x5000100100200900L,
+            0x0000040080080080L, 0x0003000204000900L, 0x4220080630035400L, 0x6140801100006080L,
+            0x1009234100800039L, 0x8000201200804102L, 0x5004100822004082L, 0x2802000440100822L,
+            0x0801008408001017L, 0x0002000108041062L, 0x8040121108129044L, 0x0400032411008242L
+    };
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x01A0C20202002A00L, 0x2320810102008401L, 0x0408820402218000L, 0x10024081010C0040L,
+            0x4104042001041200L, 0x8400902420001100L, 0x001108220220001AL, 0xAA80240208040300L,
+            0x21C8089014080060L, 0x0000020214140090L, 0x0280040C0C104000L, 0x18B0022082084040L,
+            0x4004040420810801L, 0x4448008804402804L, 0x4081091401044000L, 0x20404C8848021008L,
+            0xC251800510100100L, 0x0620200802808200L, 0xA111000206020200L, 0x8001002020408000L,
+            0x0024011084A00006L, 0x202040020110010AL, 0x004A048088042300L, 0x004840A104208C20L,
+            0x0010C82044481000L, 0x0081041208080820L, 0x0040240008004408L, 0x2804010000200880L,
+            0x0504040000410050L, 0x100A008014100090L, 0x8212008007480848L, 0x0021020001328424L,
+            0x0001901000082008L, 0x0A01086000031400L, 0x0030140202440800L, 0x4084820080180480L,
+            0x0081010400C20020L, 0x8010010040020042L, 0x80241804A0360082L, 0x044C009201108440L,
+            0xA104020241301000L, 0x00808C10020B0922L, 0x0012042208000100L, 0x8000004012021041L,
+            0x8082400B02100B00L, 0x0040408808425680L, 0x20621A0441180400L, 0x4022240848808201L,
+            0x0004840120122000L, 0x1000420210420002L, 0xC800404044108100L, 0x4009800A10440000L,
+            0x011D010510440840L, 0x80008A2048408024L, 0x1062024418088201L, 0x3004410809250010L,
+            0x2820818409114080L, 0x0000042402080404L, 0x0200090020841000L, 0x0082090000842408L,
+            0x1010080060024424L, 0x1100600488100100L, 0x0022082204681210L, 0x0140288094008024L
+    };
+
+    static {
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int from = 0; from < 64; from++) {
+            for (int[] direction : directions) {
+                long passed = 0;
+                int row = (from >>> 3) + direction[0];
+                int col = (from & 7) + direction[1];
+                while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                    int to = row * 8 + col;
+                    BETWEEN[from][to] = passed;
+                    passed |= 1L << to;
+                    row += direction[0];
+                    col += direction[1];
+                }
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            long from = bit(square);
+            KNIGHT_ATTACKS[square] = ((from << 17) & NOT_FILE_A) | ((from << 15) & NOT_FILE_H)
+                    | ((from << 10) & NOT_FILE_AB) | ((from << 6) & NOT_FILE_GH)
+                    | ((from >>> 17) & NOT_FILE_H) | ((from >>> 15) & NOT_FILE_A)
+                    | ((from >>> 10) & NOT_FILE_GH) | ((from >>> 6) & NOT_FILE_AB);
+            long sides = ((from << 1) & NOT_FILE_A) | ((from >>> 1) & NOT_FILE_H);
+            long row = from | sides;
+            KING_ATTACKS[square] = sides | (row << 8) | (row >>> 8);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] =
+                    ((from << 9) & NOT_FILE_A) | ((from << 7) & NOT_FILE_H);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] =
+                    ((from >>> 7) & NOT_FILE_A) | ((from >>> 9) & NOT_FILE_H);
+        }
+
+        for (int square = 0; square < 64; square++) {
+            ROOK_MAGICS[square] = Magic.build(square, true, ROOK_MAGIC_NUMBERS[square]);
+            BISHOP_MAGICS[square] = Magic.build(square, false, BISHOP_MAGIC_NUMBERS[square]);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * @return the square index for a row and column, both counted from 1
+     */
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @return the row of a square, counted from 1
+     */
+    static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the column of a square, counted from 1
+     */
+    static int col(int square) {
+        return (square & 7) + 1;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return the squares strictly between two squares on the same line, or an empty set if they share no line
+     */
+    static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color standing on square can capture on
+     */
+    static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied) | BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * Walks every ray of a rook or bishop, used only to fill the magic lookup tables
+     */
+    private static long slidingAttacks(int square, long occupied, boolean rook) {
+        if (rook) {
+            return ray(square, occupied, 1, 0) | ray(square, occupied, -1, 0)
+                    | ray(square, occupied, 0, 1) | ray(square, occupied, 0, -1);
+        }
+        return ray(square, occupied, 1, 1) | ray(square, occupied, 1, -1)
+                | ray(square, occupied, -1, 1) | ray(square, occupied, -1, -1);
+    }
+
+    /**
+     * walks from square in one direction until the edge of the board or the first occupied square
+     *
+     * @return every square passed over, including the blocking square if there is one
+     */
+    private static long ray(int square, long occupied, int rowStep, int colStep) {
+        long attacks = 0;
+        int row = (square >>> 3) + rowStep;
+        int col = (square & 7) + colStep;
+        while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            long target = 1L << (row * 8 + col);
+            attacks |= target;
+            if ((occupied & target) != 0) {
+                break;
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return attacks;
+    }
+
+    /**
+     * A slider's attack table for one square. Multiplying the pieces that could block the slider by the
+     * magic number gathers them into the top bits of the product, which then index straight into a table
+     * of precomputed attacks, so looking up a rook or bishop costs a multiply and a shift.
+     */
+    private record Magic(long mask, long magic, int shift, long[] table) {
+
+        long attacks(long occupied) {
+            return table[(int) (((occupied & mask) * magic) >>> shift)];
+        }
+
+        /**
+         * Fills a square's table from its magic number, placing the attacks for every blocker arrangement
+         *
+         * @throws IllegalStateException if the number sends two arrangements needing different attacks to one slot
+         */
+        static Magic build(int square, boolean rook, long magic) {
+            //the last square of each ray is attacked whether or not it is occupied, so it is left out of the mask
+            long edges = ((RANK_1 | RANK_8) & ~(RANK_1 << ((square >>> 3) * 8)))
+                    | ((FILE_A | FILE_H) & ~(FILE_A << (square & 7)));
+            long mask = slidingAttacks(square, 0, rook) & ~edges;
+            int bits = Long.bitCount(mask);
+            int shift = 64 - bits;
+
+            //every subset of the mask, walked with the carry-rippler trick. A slider always attacks at least
+            //one square, so an empty slot is one nothing has been placed in yet
+            long[] table = new long[1 << bits];
+            long subset = 0;
+            do {
+                long attacks = slidingAttacks(square, subset, rook);
+                int slot = (int) ((subset * magic) >>> shift);
+                if (table[slot] != 0 && table[slot] != attacks) {
+                    throw new IllegalStateException("Magic number for square " + square + " collides");
+                }
+                table[slot] = attacks;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+            return new Magic(mask, magic, shift, table);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -12,10 +11,67 @@ import java.util.Objects;
 public class ChessBoard {
     private static final int BOARD_HEIGHT = 8;
     private static final int BOARD_WIDTH = 8;
-    private ChessPiece[][] board = new ChessPiece[BOARD_HEIGHT][BOARD_WIDTH];
+    private static final int SQUARES = BOARD_HEIGHT * BOARD_WIDTH;
+    private static final int PIECE_KINDS = 12;
+    //undo records pack the move into the low bits, then the moved piece, the captured piece plus one,
+    //the castling rights and the en passant square plus one from before the move
+    private static final long UNDO_MOVE_MASK = 0xFFFF;
+    private static final int UNDO_MOVED_SHIFT = 16;
+    private static final int UNDO_CAPTURED_SHIFT = 20;
+    private static final int UNDO_CASTLING_SHIFT = 24;
+    private static final int UNDO_EN_PASSANT_SHIFT = 28;
+    private static final int UNDO_PIECE_MASK = 0xF;
+    private static final int UNDO_EN_PASSANT_MASK = 0x7F;
+    //castling rights, one bit per team and side
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = 15;
+    //the rights that survive a move starting or ending on each square, so a king or rook leaving its
+    //home square or a rook being captured there drops the matching rights
+    private static final int[] CASTLING_KEPT = new int[SQUARES];
+    private static final byte EMPTY = 0;
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ALL_CASTLING);
+        CASTLING_KEPT[Bitboards.square(1, 5)] = ALL_CASTLING & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[Bitboards.square(1, 8)] = ALL_CASTLING & ~WHITE_KINGSIDE;
+        CASTLING_KEPT[Bitboards.square(1, 1)] = ALL_CASTLING & ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[Bitboards.square(8, 5)] = ALL_CASTLING & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[Bitboards.square(8, 8)] = ALL_CASTLING & ~BLACK_KINGSIDE;
+        CASTLING_KEPT[Bitboards.square(8, 1)] = ALL_CASTLING & ~BLACK_QUEENSIDE;
+    }
+
+    //one bitboard per color and piece type, indexed by ChessPiece.index()
+    private final long[] pieces;
+    //one bitboard per color holding every square that color occupies
+    private final long[] occupancy;
+    //one byte per square index kept alongside the bitboards so looking up a single square stays O(1). Each
+    //byte is EMPTY or a piece's index plus one
+    private final byte[] squares;
+    //Zobrist key of the pieces on the board, updated with every piece placed or removed
+    private long hash = 0;
+    //which castles are still allowed, as WHITE_KINGSIDE and friends. Kept up to date as moves are made,
+    //so legality never has to look back through the moves to see if a king or rook has moved
+    private int castling = 0;
+    //the square a pawn that just moved two squares passed over, if an enemy pawn could capture it there, otherwise -1
+    private int enPassant = -1;
+    //undo records for moves made with makeMove, never serialized with the board
+    private transient long[] undoStack;
+    private transient int undoSize = 0;
 
     public ChessBoard() {
+        this(new long[PIECE_KINDS], new long[2], new byte[SQUARES]);
+    }
 
+    /**
+     * Builds a board around arrays the caller hands over, so {@link #copy()} copies each array exactly once
+     */
+    private ChessBoard(long[] pieces, long[] occupancy, byte[] squares) {
+        this.pieces = pieces;
+        this.occupancy = occupancy;
+        this.squares = squares;
     }
 
     /**
@@ -25,7 +81,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        int square = position.index();
+        clear(square);
+        if (piece != null) {
+            put(square, ChessPiece.of(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
@@ -46,11 +106,283 @@ public class ChessBoard {
      * @return Either the piece at the position or null if there is no piece
      */
     public ChessPiece at(ChessPosition position) {
-        return board[position.getRow() - 1][position.getColumn() - 1];
+        return at(position.index());
     }
 
     public void removePiece(ChessPosition position) {
-        board[position.getRow() - 1][position.getColumn() - 1] = null;
+        clear(position.index());
+    }
+
+    /**
+     * @return the piece on a square index, or null if the square is empty
+     */
+    ChessPiece at(int square) {
+        byte code = squares[square];
+        return code == EMPTY ? null : ChessPiece.of(code - 1);
+    }
+
+    /**
+     * places a piece on an empty square index
+     */
+    void put(int square, ChessPiece piece) {
+        long bit = Bitboards.bit(square);
+        pieces[piece.index()] |= bit;
+        occupancy[piece.getTeamColor().ordinal()] |= bit;
+        squares[square] = (byte) (piece.index() + 1);
+        hash ^= Zobrist.piece(piece, square);
+    }
+
+    /**
+     * empties a square index, doing nothing if it is already empty
+     */
+    void clear(int square) {
+        ChessPiece piece = at(square);
+        if (piece == null) {
+            return;
+        }
+        long bit = Bitboards.bit(square);
+        pieces[piece.index()] &= ~bit;
+        occupancy[piece.getTeamColor().ordinal()] &= ~bit;
+        squares[square] = EMPTY;
+        hash ^= Zobrist.piece(piece, square);
+    }
+
+    /**
+     * Makes a packed move in place and remembers how to take it back with {@link #unmakeMove()}.
+     * The move is not checked for legality.
+     *
+     * @param move the packed move to make
+     */
+    void makeMove(int move) {
+        if (undoStack == null) {
+            undoStack = new long[32];
+        } else if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoSize * 2);
+        }
+        undoStack[undoSize++] = applyMove(move);
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int)}
+     */
+    void unmakeMove() {
+        long record = undoStack[--undoSize];
+        int move = (int) (record & UNDO_MOVE_MASK);
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int captured = (int) (record >>> UNDO_CAPTURED_SHIFT) & UNDO_PIECE_MASK;
+        ChessPiece moved = ChessPiece.of((int) (record >>> UNDO_MOVED_SHIFT) & UNDO_PIECE_MASK);
+
+        clear(to);
+        put(from, moved);
+        if (captured != 0) {
+            put(to, ChessPiece.of(captured - 1));
+        } else if (isCastle(moved, from, to)) {
+            int rookTo = castlingRookTo(to);
+            ChessPiece rook = at(rookTo);
+            clear(rookTo);
+            put(castlingRookFrom(to), rook);
+        } else if (isEnPassant(moved, from, to)) {
+            put(enPassantCaptured(from, to),
+                    ChessPiece.of(MoveGenerator.opponent(moved.getTeamColor()), ChessPiece.PieceType.PAWN));
+        }
+
+        castling = (int) (record >>> UNDO_CASTLING_SHIFT) & UNDO_PIECE_MASK;
+        enPassant = (int) ((record >>> UNDO_EN_PASSANT_SHIFT) & UNDO_EN_PASSANT_MASK) - 1;
+    }
+
+    /**
+     * Makes a packed move in place without keeping it for {@link #unmakeMove()}, promoting the piece if the
+     * move has a promotion piece. A king moving two columns castles, bringing the rook across, and a pawn
+     * moving diagonally onto an empty square captures en passant. The move is not checked for legality.
+     *
+     * @param move the packed move to make
+     * @return an undo record holding the move, the moved piece, the captured piece and the castling rights
+     * and en passant square from before the move
+     */
+    long applyMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece moved = at(from);
+        ChessPiece captured = at(to);
+        long record = (move & UNDO_MOVE_MASK)
+                | ((long) moved.index() << UNDO_MOVED_SHIFT)
+                | ((long) (captured == null ? 0 : captured.index() + 1) << UNDO_CAPTURED_SHIFT)
+                | ((long) castling << UNDO_CASTLING_SHIFT)
+                | ((long) (enPassant + 1) << UNDO_EN_PASSANT_SHIFT);
+
+        clear(to);
+        clear(from);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        put(to, promotion == null ? moved : ChessPiece.of(moved.getTeamColor(), promotion));
+
+        if (captured == null && isCastle(moved, from, to)) {
+            int rookFrom = castlingRookFrom(to);
+            ChessPiece rook = at(rookFrom);
+            clear(rookFrom);
+            put(castlingRookTo(to), rook);
+        } else if (captured == null && isEnPassant(moved, from, to)) {
+            clear(enPassantCaptured(from, to));
+        }
+
+        castling &= CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        enPassant = -1;
+        if (moved.getPieceType() == ChessPiece.PieceType.PAWN && Math.abs(to - from) == 16) {
+            //only remember the square if a pawn is standing by to capture on it
+            int passed = (from + to) >>> 1;
+            long enemyPawns = bitboard(MoveGenerator.opponent(moved.getTeamColor()), ChessPiece.PieceType.PAWN);
+            if ((Bitboards.pawnAttacks(moved.getTeamColor(), passed) & enemyPawns) != 0) {
+                enPassant = passed;
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Takes back a move that captured nothing and moved no pawn without needing an undo record: the piece
+     * steps back to where it started, along with the rook if it castled. Castling rights and the en passant
+     * square are left for the caller to set.
+     *
+     * @throws IllegalArgumentException if there is no piece where the move ended or its start is not empty
+     */
+    void retract(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece moved = at(to);
+        if (moved == null || at(from) != null) {
+            throw new IllegalArgumentException("Move cannot be taken back here");
+        }
+        clear(to);
+        put(from, moved);
+        if (isCastle(moved, from, to)) {
+            int rookTo = castlingRookTo(to);
+            ChessPiece rook = at(rookTo);
+            if (rook == null || at(castlingRookFrom(to)) != null) {
+                throw new IllegalArgumentException("Castling cannot be taken back here");
+            }
+            clear(rookTo);
+            put(castlingRookFrom(to), rook);
+        }
+    }
+
+    private static boolean isCastle(ChessPiece moved, int from, int to) {
+        return moved.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2;
+    }
+
+    private static boolean isEnPassant(ChessPiece moved, int from, int to) {
+        return moved.getPieceType() == ChessPiece.PieceType.PAWN && ((from ^ to) & 7) != 0;
+    }
+
+    /**
+     * @return the square of the pawn captured by an en passant capture: beside the start, in the end's column
+     */
+    static int enPassantCaptured(int from, int to) {
+        return (from & ~7) | (to & 7);
+    }
+
+    /**
+     * @return the corner a castling rook starts on, given where the king lands
+     */
+    static int castlingRookFrom(int kingTo) {
+        return (kingTo & 7) == 6 ? kingTo + 1 : kingTo - 2;
+    }
+
+    /**
+     * @return the square a castling rook lands on, given where the king lands
+     */
+    static int castlingRookTo(int kingTo) {
+        return (kingTo & 7) == 6 ? kingTo - 1 : kingTo + 1;
+    }
+
+    /**
+     * @return the castles still allowed, as a set of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and
+     * BLACK_QUEENSIDE bits
+     */
+    int castlingRights() {
+        return castling;
+    }
+
+    void setCastlingRights(int rights) {
+        castling = rights & ALL_CASTLING;
+    }
+
+    /**
+     * @return the square a pawn can capture en passant on, or -1 if there is none
+     */
+    int enPassantSquare() {
+        return enPassant;
+    }
+
+    void setEnPassantSquare(int square) {
+        enPassant = square;
+    }
+
+    /**
+     * Works out castling rights from where the pieces stand, giving a team every castle whose king and rook
+     * are still on their starting squares, and clears the en passant square. Used for boards set up piece
+     * by piece, where there are no earlier moves to go on.
+     */
+    void inferCastlingRights() {
+        castling = 0;
+        ChessPiece whiteKing = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        ChessPiece whiteRook = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        ChessPiece blackKing = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        ChessPiece blackRook = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        if (at(Bitboards.square(1, 5)) == whiteKing) {
+            castling |= at(Bitboards.square(1, 8)) == whiteRook ? WHITE_KINGSIDE : 0;
+            castling |= at(Bitboards.square(1, 1)) == whiteRook ? WHITE_QUEENSIDE : 0;
+        }
+        if (at(Bitboards.square(8, 5)) == blackKing) {
+            castling |= at(Bitboards.square(8, 8)) == blackRook ? BLACK_KINGSIDE : 0;
+            castling |= at(Bitboards.square(8, 1)) == blackRook ? BLACK_QUEENSIDE : 0;
+        }
+        enPassant = -1;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board
+     */
+    long hash() {
+        return hash;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board together with the castling rights and en passant
+     * square, which is what decides the moves available
+     */
+    long positionKey() {
+        return hash ^ Zobrist.castling(castling) ^ Zobrist.enPassant(enPassant);
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color and type
+     */
+    long bitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color
+     */
+    long occupancy(ChessGame.TeamColor color) {
+        return occupancy[color.ordinal()];
+    }
+
+    /**
+     * The king bitboard is updated with every piece placed or removed, so the king never has to be searched for
+     *
+     * @return the square index of the given team's king, or -1 if that team has no king on the board
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        long king = pieces[color.ordinal() * 6 + ChessPiece.PieceType.KING.ordinal()];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return the set of squares holding any piece
+     */
+    long occupied() {
+        return occupancy[0] | occupancy[1];
     }
 
     /**
@@ -58,12 +390,8 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        //emptying board
-        for (int i = 0; i < BOARD_HEIGHT; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                board[i][j] = null;
-            }
-        }
+        clearAll();
+        castling = ALL_CASTLING;
 
         addRooks();
         addKnights();
@@ -72,19 +400,33 @@ public class ChessBoard {
         addPawns();
     }
 
+    /**
+     * Takes every piece off the board, drops all castling rights and the en passant square, and forgets any
+     * moves made, reusing the board's arrays so filling it again allocates nothing
+     */
+    void clearAll() {
+        Arrays.fill(pieces, 0);
+        Arrays.fill(occupancy, 0);
+        Arrays.fill(squares, EMPTY);
+        hash = 0;
+        castling = 0;
+        enPassant = -1;
+        undoSize = 0;
+    }
+
     /**
      * helper function for resetBoard
      * adds rooks in starting positions
      */
     private void addRooks() {
-        ChessPiece whiteRook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        ChessPiece blackRook = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        ChessPiece whiteRook = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        ChessPiece blackRook = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
 
-        board[0][0] = whiteRook;
-        board[0][7] = whiteRook;
+        put(Bitboards.square(1, 1), whiteRook);
+        put(Bitboards.square(1, 8), whiteRook);
 
-        board[7][0] = blackRook;
-        board[7][7] = blackRook;
+        put(Bitboards.square(8, 1), blackRook);
+        put(Bitboards.square(8, 8), blackRook);
     }
 
     /**
@@ -92,14 +434,14 @@ public class ChessBoard {
      * adds knights in starting positions
      */
     private void addKnights() {
-        ChessPiece whiteKnight = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        ChessPiece blackKnight = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        ChessPiece whiteKnight = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        ChessPiece blackKnight = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
 
-        board[0][1] = whiteKnight;
-        board[0][6] = whiteKnight;
+        put(Bitboards.square(1, 2), whiteKnight);
+        put(Bitboards.square(1, 7), whiteKnight);
 
-        board[7][1] = blackKnight;
-        board[7][6] = blackKnight;
+        put(Bitboards.square(8, 2), blackKnight);
+        put(Bitboards.square(8, 7), blackKnight);
     }
 
     /**
@@ -107,14 +449,14 @@ public class ChessBoard {
      * adds bishops in starting positions
      */
     private void addBishops() {
-        ChessPiece whiteBishop = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        ChessPiece blackBishop = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        ChessPiece whiteBishop = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        ChessPiece blackBishop = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
 
-        board[0][2] = whiteBishop;
-        board[0][5] = whiteBishop;
+        put(Bitboards.square(1, 3), whiteBishop);
+        put(Bitboards.square(1, 6), whiteBishop);
 
-        board[7][2] = blackBishop;
-        board[7][5] = blackBishop;
+        put(Bitboards.square(8, 3), blackBishop);
+        put(Bitboards.square(8, 6), blackBishop);
     }
 
     /**
@@ -122,16 +464,16 @@ public class ChessBoard {
      * adds kings and queens in starting positions
      */
     private void addRoyalty() {
-        ChessPiece whiteKing = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        ChessPiece blackKing = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        ChessPiece whiteQueen = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        ChessPiece blackQueen = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        ChessPiece whiteKing = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        ChessPiece blackKing = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        ChessPiece whiteQueen = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+        ChessPiece blackQueen = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
 
-        board[0][3] = whiteQueen;
-        board[0][4] = whiteKing;
+        put(Bitboards.square(1, 4), whiteQueen);
+        put(Bitboards.square(1, 5), whiteKing);
 
-        board[7][3] = blackQueen;
-        board[7][4] = blackKing;
+        put(Bitboards.square(8, 4), blackQueen);
+        put(Bitboards.square(8, 5), blackKing);
     }
 
     /**
@@ -139,24 +481,17 @@ public class ChessBoard {
      * adds pawns in starting positions
      */
     private void addPawns() {
-        ChessPiece whitePawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        ChessPiece blackPawn = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        ChessPiece whitePawn = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        ChessPiece blackPawn = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
 
         for (int i = 0; i < BOARD_WIDTH; i++) {
-            board[1][i] = whitePawn;
-            board[6][i] = blackPawn;
+            put(Bitboards.square(2, i + 1), whitePawn);
+            put(Bitboards.square(7, i + 1), blackPawn);
         }
     }
 
     public boolean isEmpty() {
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_HEIGHT; j++) {
-                if (board[i][j] != null) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return occupied() == 0;
     }
 
     @Override
@@ -168,25 +503,20 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) object;
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_HEIGHT; j++) {
-                if (!(this.board[i][j] == null) && !(that.board[i][j] == null)
-                        && !this.board[i][j].equals(that.board[i][j])) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return Arrays.equals(this.pieces, that.pieces);
     }
 
-    public ChessBoard copy() {
-        ChessBoard copy = new ChessBoard();
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
 
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_HEIGHT; j++) {
-                copy.board[i][j] = this.board[i][j];
-            }
-        }
+    public ChessBoard copy() {
+        ChessBoard copy = new ChessBoard(this.pieces.clone(), this.occupancy.clone(), this.squares.clone());
+        copy.hash = this.hash;
+        copy.castling = this.castling;
+        copy.enPassant = this.enPassant;
+        //the copy starts with its own empty undo stack
 
         return copy;
     }
@@ -1,9 +1,12 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -14,6 +17,28 @@ import java.util.Set;
 public class ChessGame {
     private TeamColor turn = TeamColor.WHITE;
     private ChessBoard board = new ChessBoard();
+    //moves since the last capture or pawn move, for the fifty-move rule
+    private int halfmoveClock = 0;
+    //starts at 1 and goes up after each of black's moves, as in FEN
+    private int fullmoveNumber = 1;
+    //position keys since the last capture or pawn move, oldest first, for spotting repetitions. Positions from
+    //before a capture or pawn move can never come back, so the history never holds more than the clock allows
+    private long[] history = new long[16];
+    //the move made from each position in the history, which is all a saved game needs to rebuild the keys
+    private int[] historyMoves = new int[16];
+    private int historySize = 0;
+    //castling rights and en passant square of the first position in the history
+    private int historyCastling = 0;
+    private int historyEnPassant = -1;
+    //reused between move generation calls, never serialized with the game
+    private transient MoveList scratch;
+    private transient LegalMoveGenerator legalMoves;
+    private transient SquareMoveCache squareMoves;
+    //looks at the position after a move while writing it in SAN, so it must not share the square cache
+    private transient LegalMoveGenerator replies;
+    //bumped whenever this game changes the position, so remembered answers know when they are stale
+    private transient long version;
+    private transient PositionMemo memo;
 
     public ChessGame() {
         //based on the tests, when a game is created, it should have a fully loaded-in board already available
@@ -48,33 +73,72 @@ public class ChessGame {
      * Gets a valid moves for a piece at the given location
      *
      * @param startPosition the piece to get valid moves for
-     * @return Set of valid moves for requested piece, or null if no piece at
+     * @return read-only Set of valid moves for requested piece, empty if no piece at
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        Set<ChessMove> possible = new HashSet<>();
-        Set<ChessMove> valid = new HashSet<>();
-
         if (startPosition == null || !startPosition.onBoard()) {
-            return possible;
+            return new MoveList(0).toCollection();
         }
 
+        //the returned collections are read-only, so the same one can be handed out until the position changes
+        PositionMemo memo = memo();
+        Collection<ChessMove> remembered = memo.validMoves(startPosition.index());
+        if (remembered != null) {
+            return remembered;
+        }
+        return memo.validMoves(startPosition.index(), findValidMoves(startPosition));
+    }
+
+    private Collection<ChessMove> findValidMoves(ChessPosition startPosition) {
+        MoveList valid = new MoveList(32);
         ChessPiece piece = board.at(startPosition);
         if (piece == null) {
-            return possible;
+            return valid.toCollection();
         }
 
-        ChessRules rules = new ChessRules(board, piece);
-        possible = rules.getPossibleMoves(startPosition);
-
-        //make sure no moves enter check
-        for (ChessMove move : possible) {
-            if (notEnterCheck(move)) {
-                valid.add(move);
+        //pick this piece's moves out of its team's cached legal moves if the position has been seen before
+        int from = startPosition.index();
+        MoveCache.Entry entry = MoveCache.shared().get(legalMoveKey(piece.getTeamColor()));
+        if (entry != null) {
+            for (int move : entry.moves()) {
+                if (PackedMove.from(move) == from) {
+                    valid.add(move);
+                }
             }
+            return valid.toCollection();
         }
 
-        return valid;
+        //otherwise only this piece's moves are needed, mostly built from targets remembered on earlier plies
+        legalMoves().prepare(board, piece.getTeamColor()).generate(from, valid);
+        return valid.toCollection();
+    }
+
+    /**
+     * Gets every valid move for the team whose turn it is in one pass, sharing the king search, check test
+     * and pin detection between all of the team's pieces
+     *
+     * @return the valid moves grouped by the position of the piece making them, in board order. Pieces with
+     * no valid moves are left out.
+     */
+    public Map<ChessPosition, Collection<ChessMove>> allValidMoves() {
+        int[] moves = legalMoveEntry(turn).moves();
+        PositionMemo memo = memo();
+        Map<ChessPosition, Collection<ChessMove>> grouped = new LinkedHashMap<>();
+
+        //generated moves come out one piece at a time, so each piece's moves are already next to each other
+        int start = 0;
+        while (start < moves.length) {
+            int from = PackedMove.from(moves[start]);
+            int end = start;
+            MoveList pieceMoves = new MoveList(8);
+            while (end < moves.length && PackedMove.from(moves[end]) == from) {
+                pieceMoves.add(moves[end++]);
+            }
+            grouped.put(ChessPosition.of(from), memo.validMoves(from, pieceMoves.toCollection()));
+            start = end;
+        }
+        return Collections.unmodifiableMap(grouped);
     }
 
     /**
@@ -94,26 +158,56 @@ public class ChessGame {
             throw (new InvalidMoveException());
         }
 
-        //promote pawn
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            if ((piece.getTeamColor() == TeamColor.BLACK && move.getEndPosition().getRow() == 1)
-                    || (piece.getTeamColor() == TeamColor.WHITE && move.getEndPosition().getRow() == 8)) {
-                piece = new ChessPiece(turn, move.getPromotionPiece());
-            }
-        }
-
-        //execute move
-        board.addPiece(move.getEndPosition(), piece);
-        board.removePiece(move.getStartPosition());
+        //execute move, promoting the pawn if the move names a promotion piece
+        int packed = PackedMove.pack(move);
+        boolean irreversible = piece.getPieceType() == ChessPiece.PieceType.PAWN
+                || board.at(PackedMove.to(packed)) != null;
+        remember(irreversible, packed);
+        long before = board.hash();
+        long occupied = board.occupied();
+        board.applyMove(packed);
+        squareMoves().moved(board, before, occupied, packed);
+        version++;
 
         //pass turn
         if (turn == TeamColor.BLACK) {
             turn = TeamColor.WHITE;
+            fullmoveNumber++;
         } else {
             turn = TeamColor.BLACK;
         }
     }
 
+    /**
+     * Records the position about to be left and the move leaving it in the repetition history, starting the
+     * history and the fifty-move count over after a capture or pawn move
+     */
+    private void remember(boolean irreversible, int move) {
+        if (irreversible) {
+            halfmoveClock = 0;
+            historySize = 0;
+            return;
+        }
+        halfmoveClock++;
+        if (historySize == 0) {
+            historyCastling = board.castlingRights();
+            historyEnPassant = board.enPassantSquare();
+        }
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+            historyMoves = Arrays.copyOf(historyMoves, historySize * 2);
+        }
+        history[historySize] = getPositionKey();
+        historyMoves[historySize++] = move;
+    }
+
+    /**
+     * @return the number of the move being played, starting at 1 and going up after each of black's moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
     /**
      * Checks if a move is allowed according to game rules
      *
@@ -121,26 +215,21 @@ public class ChessGame {
      * @return if move is allowed
      */
     public boolean isValidMove(ChessMove move) {
-        if (move.getStartPosition() == null || !move.getStartPosition().onBoard() || !move.getEndPosition().onBoard()) {
+        int packed = PackedMove.pack(move);
+        if (packed < 0) {
             return false;
         }
-
-        ChessPiece piece = board.at(move.getStartPosition());
+        ChessPiece piece = board.at(PackedMove.from(packed));
         if (piece == null) {
             return false;
         }
 
-        //get all possible moves
-        ChessRules rules = new ChessRules(board, piece);
-        Set<ChessMove> moves = rules.getPossibleMoves(move.getStartPosition());
-
-        //check if move is possible and if so, if it enters check
-        for (ChessMove possibleMove : moves) {
-            if (move.equals(possibleMove) && notEnterCheck(move)) {
+        //check if the move is one of the team's legal moves
+        for (int legal : legalMoveEntry(piece.getTeamColor()).moves()) {
+            if (legal == packed) {
                 return true;
             }
         }
-
         return false;
     }
 
@@ -151,21 +240,24 @@ public class ChessGame {
      * @return true if move does NOT enter check
      */
     public boolean notEnterCheck(ChessMove move) {
-        ChessBoard testBoard = board.copy();
-        ChessPiece piece = testBoard.at(move.getStartPosition());
+        int packed = PackedMove.pack(move);
+        return packed >= 0 && notEnterCheck(packed);
+    }
+
+    private boolean notEnterCheck(int move) {
+        ChessPiece piece = board.at(PackedMove.from(move));
+        ChessPiece target = board.at(PackedMove.to(move));
 
-        //execute move on testBoard
-        //doesn't check as many conditions for this move being valid because it's only affecting a temporary board
         //only checks conditions that could make subsequent function calls impossible
-        if (testBoard.at(move.getEndPosition()) == null
-                || testBoard.at(move.getEndPosition()).getTeamColor() != piece.getTeamColor()) {
-            testBoard.addPiece(move.getEndPosition(), piece);
-            testBoard.removePiece(move.getStartPosition());
+        if (target != null && target.getTeamColor() == piece.getTeamColor()) {
+            return !ChessRules.isInCheck(board, piece.getTeamColor());
         }
 
-        //check if in check
-        ChessRules testCheck = new ChessRules(testBoard, piece);
-        return !testCheck.isInCheck(piece.getTeamColor());
+        //make the move in place, test for check, then take it back
+        board.makeMove(move);
+        boolean inCheck = ChessRules.isInCheck(board, piece.getTeamColor());
+        board.unmakeMove();
+        return !inCheck;
     }
 
     /**
@@ -175,8 +267,12 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessRules testCheck = new ChessRules(board, null);
-        return testCheck.isInCheck(teamColor);
+        PositionMemo memo = memo();
+        byte known = memo.status(PositionMemo.CHECK, teamColor);
+        if (known != PositionMemo.UNKNOWN) {
+            return known == PositionMemo.YES;
+        }
+        return memo.status(PositionMemo.CHECK, teamColor, ChessRules.isInCheck(board, teamColor));
     }
 
     /**
@@ -186,16 +282,23 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
+        PositionMemo memo = memo();
+        byte known = memo.status(PositionMemo.CHECKMATE, teamColor);
+        if (known != PositionMemo.UNKNOWN) {
+            return known == PositionMemo.YES;
         }
+        return memo.status(PositionMemo.CHECKMATE, teamColor, findCheckmate(teamColor));
+    }
 
-        //get all valid moves for team
-        var possibleMoves = getAllValidMoves(teamColor);
+    private boolean findCheckmate(TeamColor teamColor) {
+        MoveCache.Entry entry = MoveCache.shared().get(legalMoveKey(teamColor));
+        if (entry != null) {
+            return entry.status() == MoveCache.Status.CHECKMATE;
+        }
 
-        //if there are any valid moves, then the specified team is not in checkmate because a move can only be valid if
-        //it doesn't end with the king in check
-        return possibleMoves.isEmpty();
+        //stop looking as soon as one legal move turns up
+        LegalMoveGenerator generator = legalMoves().prepare(board, teamColor);
+        return generator.inCheck() && !generator.hasLegalMove();
     }
 
     /**
@@ -206,31 +309,202 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        //to be in stalemate, cannot start in check
-        if (isInCheck(teamColor)) {
-            return false;
+        PositionMemo memo = memo();
+        byte known = memo.status(PositionMemo.STALEMATE, teamColor);
+        if (known != PositionMemo.UNKNOWN) {
+            return known == PositionMemo.YES;
         }
+        return memo.status(PositionMemo.STALEMATE, teamColor, findStalemate(teamColor));
+    }
 
-        var possibleMoves = getAllValidMoves(teamColor);
+    private boolean findStalemate(TeamColor teamColor) {
+        MoveCache.Entry entry = MoveCache.shared().get(legalMoveKey(teamColor));
+        if (entry != null) {
+            return entry.status() == MoveCache.Status.STALEMATE;
+        }
 
-        //if there are any valid moves, specified team is not in stalemate because a valid move cannot end with the
-        //king in check
-        return possibleMoves.isEmpty();
+        //to be in stalemate, cannot start in check, and stop looking as soon as one legal move turns up
+        LegalMoveGenerator generator = legalMoves().prepare(board, teamColor);
+        return !generator.inCheck() && !generator.hasLegalMove();
     }
 
-    private Set<ChessMove> getAllValidMoves(TeamColor teamColor) {
-        //get all valid moves for team
-        Set<ChessMove> possibleMoves = new HashSet<>();
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPosition test = new ChessPosition(i, j);
-                if (board.at(test) != null && board.at(test).getTeamColor() == teamColor) {
-                    possibleMoves.addAll(validMoves(test));
-                }
+    /**
+     * Determines if the current position has now come up at least three times with the same team to move,
+     * the same castling rights and the same en passant captures. Only positions since the last capture or
+     * pawn move are compared, and only every other one, since the team to move has to match.
+     *
+     * @return True if the position has been repeated three times
+     */
+    public boolean isThreefoldRepetition() {
+        long key = getPositionKey();
+        int seen = 1;
+        for (int i = historySize - 2; i >= 0; i -= 2) {
+            if (history[i] == key && ++seen >= 3) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Determines if fifty moves by each team have gone by without a capture or a pawn move
+     *
+     * @return True if the game can be drawn by the fifty-move rule
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * @return how many moves have been made since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Determines if neither team has enough pieces left to ever checkmate: kings alone, a king and a single
+     * bishop or knight against a king, or kings and bishops that all stand on the same color of square.
+     * Piece counts come straight from the board's bitboards, so nothing is scanned.
+     *
+     * @return True if neither team can checkmate
+     */
+    public boolean isInsufficientMaterial() {
+        long heavy = 0;
+        long knights = 0;
+        long bishops = 0;
+        for (TeamColor color : TeamColor.values()) {
+            heavy |= board.bitboard(color, ChessPiece.PieceType.PAWN) | board.bitboard(color, ChessPiece.PieceType.ROOK)
+                    | board.bitboard(color, ChessPiece.PieceType.QUEEN);
+            knights |= board.bitboard(color, ChessPiece.PieceType.KNIGHT);
+            bishops |= board.bitboard(color, ChessPiece.PieceType.BISHOP);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        //any number of bishops on squares of one color can never cover a king's escape squares of the other
+        return knights == 0 && ((bishops & Bitboards.LIGHT_SQUARES) == 0 || (bishops & ~Bitboards.LIGHT_SQUARES) == 0);
+    }
+
+    /**
+     * Determines if the game is drawn by threefold repetition, the fifty-move rule or insufficient material.
+     * Stalemate is reported separately by {@link #isInStalemate}.
+     *
+     * @return True if the game is drawn
+     */
+    public boolean isDraw() {
+        return isFiftyMoveRule() || isInsufficientMaterial() || isThreefoldRepetition();
+    }
+
+    /**
+     * Walks a team's legal moves lazily, generating each piece's moves only when the iterator reaches it,
+     * so a caller that only needs the first few moves never pays for the rest. The board must not change
+     * while the iterator is in use.
+     *
+     * @param teamColor the team whose moves to walk
+     * @return an iterator over the team's legal moves
+     */
+    public Iterator<ChessMove> legalMoveIterator(TeamColor teamColor) {
+        return new LegalMoveGenerator().prepare(board, teamColor).iterator();
+    }
+
+    /**
+     * Looks up every legal move for a team in the shared move cache, generating and caching them on a miss
+     *
+     * @param teamColor the team whose moves to get
+     * @return the cached moves and status for the team in the current position
+     */
+    private MoveCache.Entry legalMoveEntry(TeamColor teamColor) {
+        long key = legalMoveKey(teamColor);
+        MoveCache cache = MoveCache.shared();
+        MoveCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            return entry;
+        }
+
+        LegalMoveGenerator generator = legalMoves().prepare(board, teamColor);
+        MoveList moves = scratch();
+        moves.clear();
+        generator.generate(moves);
+
+        //with no moves left the team is in checkmate if it is in check, otherwise it is in stalemate
+        MoveCache.Status status;
+        if (generator.inCheck()) {
+            status = moves.isEmpty() ? MoveCache.Status.CHECKMATE : MoveCache.Status.CHECK;
+        } else {
+            status = moves.isEmpty() ? MoveCache.Status.STALEMATE : MoveCache.Status.NONE;
+        }
+        return cache.put(key, moves, status);
+    }
+
+    /**
+     * @return the move cache key for a team's legal moves in the current position
+     */
+    private long legalMoveKey(TeamColor teamColor) {
+        return board.positionKey() ^ Zobrist.turn(teamColor);
+    }
+
+    /**
+     * @return this game's reusable move buffer, created on first use
+     */
+    private MoveList scratch() {
+        if (scratch == null) {
+            scratch = new MoveList();
+        }
+        return scratch;
+    }
+
+    /**
+     * @return this game's reusable legal move generator, created on first use
+     */
+    private LegalMoveGenerator legalMoves() {
+        if (legalMoves == null) {
+            legalMoves = new LegalMoveGenerator().using(squareMoves());
+        }
+        return legalMoves;
+    }
+
+    /**
+     * @return the packed legal move a SAN move names for the team to move, or {@link Notation#NO_MOVE} or
+     * {@link Notation#AMBIGUOUS} if it names none or several
+     */
+    int findSan(CharSequence text, int start, int end) {
+        return Notation.parseSan(text, start, end, board, turn, legalMoves().prepare(board, turn), scratch());
+    }
+
+    /**
+     * Writes a legal packed move in SAN for the team whose piece makes it
+     */
+    void appendSan(StringBuilder san, int move) {
+        TeamColor color = board.at(PackedMove.from(move)).getTeamColor();
+        if (replies == null) {
+            replies = new LegalMoveGenerator();
+        }
+        Notation.appendSan(san, move, board, color, legalMoves().prepare(board, color), replies, scratch());
+    }
+
+    /**
+     * @return this game's remembered per-square move targets, created on first use
+     */
+    private SquareMoveCache squareMoves() {
+        if (squareMoves == null) {
+            squareMoves = new SquareMoveCache();
+        }
+        return squareMoves;
+    }
 
-        return possibleMoves;
+    /**
+     * @return the answers remembered for the current position, emptied first if the position has changed
+     * through this game or straight through the board
+     */
+    private PositionMemo memo() {
+        if (memo == null) {
+            memo = new PositionMemo();
+        }
+        return memo.sync(version, board.hash());
     }
 
     /**
@@ -239,7 +513,113 @@ public class ChessGame {
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
+        //a board set up piece by piece has no history, so castling is allowed wherever king and rook are home
+        board.inferCastlingRights();
+        this.board = board;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        historySize = 0;
+        version++;
+    }
+
+    /**
+     * Starts the game over from whatever position has been placed on its own board, with no repetition
+     * history. Used to fill one game with position after position without allocating.
+     */
+    void load(TeamColor turn, int halfmoveClock, int fullmoveNumber) {
+        this.turn = turn;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        historySize = 0;
+        version++;
+    }
+
+    /**
+     * @return a game set up from a FEN string
+     * @throws IllegalArgumentException if the string is not valid FEN
+     * @see Fen
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return this game's position as a FEN string
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * Puts a saved game back exactly as it was, keeping the board's castling rights and en passant square
+     * rather than working them out again like {@link #setBoard} does. The repetition history is rebuilt by
+     * taking the saved moves back on a copy of the board and playing them forward again, so saved games
+     * never hold position keys.
+     *
+     * @param fullmoveNumber the number of the move being played, starting at 1 and going up after black moves
+     * @param moves          the moves made since the last capture or pawn move, oldest first
+     * @param castling       the castling rights before the first of those moves
+     * @param enPassant      the en passant square before the first of those moves, or -1 for none
+     * @throws IllegalArgumentException if the moves do not lead to the board
+     */
+    void restore(ChessBoard board, TeamColor turn, int halfmoveClock, int fullmoveNumber, int[] moves,
+                 int castling, int enPassant) {
+        ChessBoard replay = board.copy();
+        for (int i = moves.length - 1; i >= 0; i--) {
+            replay.retract(moves[i]);
+        }
+        replay.setCastlingRights(castling);
+        replay.setEnPassantSquare(enPassant);
+
+        long[] keys = new long[Math.max(16, moves.length)];
+        TeamColor mover = moves.length % 2 == 0 ? turn : MoveGenerator.opponent(turn);
+        for (int i = 0; i < moves.length; i++) {
+            keys[i] = replay.positionKey() ^ Zobrist.turn(mover);
+            replay.applyMove(moves[i]);
+            mover = MoveGenerator.opponent(mover);
+        }
+        if (replay.positionKey() != board.positionKey()) {
+            throw new IllegalArgumentException("Saved moves do not lead to the saved position");
+        }
+
         this.board = board;
+        this.turn = turn;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = Math.max(1, fullmoveNumber);
+        this.history = keys;
+        this.historyMoves = Arrays.copyOf(moves, keys.length);
+        this.historySize = moves.length;
+        this.historyCastling = castling;
+        this.historyEnPassant = enPassant;
+        version++;
+    }
+
+    /**
+     * @return the position keys since the last capture or pawn move, oldest first
+     */
+    long[] history() {
+        return Arrays.copyOf(history, historySize);
+    }
+
+    /**
+     * @return the packed moves made since the last capture or pawn move, oldest first
+     */
+    int[] historyMoves() {
+        return Arrays.copyOf(historyMoves, historySize);
+    }
+
+    /**
+     * @return the castling rights before the first move since the last capture or pawn move
+     */
+    int historyCastling() {
+        return historySize == 0 ? board.castlingRights() : historyCastling;
+    }
+
+    /**
+     * @return the en passant square before the first move since the last capture or pawn move, or -1
+     */
+    int historyEnPassant() {
+        return historySize == 0 ? board.enPassantSquare() : historyEnPassant;
     }
 
     /**
@@ -251,6 +631,18 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Gets a 64-bit Zobrist key for the position, covering every piece on the board, whose turn it is and
+     * which castles and en passant captures are still available.
+     * Equal positions always have equal keys, and the key is kept up to date as moves are made rather than
+     * recomputed.
+     *
+     * @return the position key
+     */
+    public long getPositionKey() {
+        return board.positionKey() ^ Zobrist.turn(turn);
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) {
@@ -264,6 +656,7 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(turn, board);
+        //equals only looks at the pieces and the turn, so castling rights and en passant are left out here too
+        return Long.hashCode(board.hash() ^ Zobrist.turn(turn));
     }
 }
@@ -0,0 +1,130 @@
+package chess;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs a {@link ChessGame} into a few dozen bytes for storage, and back.
+ * <p>
+ * Version 2 layout, big-endian:
+ * <ul>
+ *     <li>1 byte: format version</li>
+ *     <li>1 byte: bit 0 set when black is to move, bits 1-4 the castling rights</li>
+ *     <li>1 byte: en passant square index plus one, or 0 for none</li>
+ *     <li>8 bytes: occupied squares as a bitboard</li>
+ *     <li>one 4-bit piece index per occupied square in square order, two to a byte</li>
+ *     <li>2 bytes: moves since the last capture or pawn move</li>
+ *     <li>2 bytes: the fullmove number</li>
+ *     <li>2 bytes: how many of those moves follow. If any do, 1 byte of castling rights and 1 byte of en
+ *     passant square plus one from before the first of them, then 2 bytes per packed move</li>
+ * </ul>
+ * The starting position takes 33 bytes, and each move since the last capture or pawn move adds two.
+ * Position keys are never stored: the repetition history is rebuilt from the moves when a game is
+ * decoded, so stored games do not depend on the Zobrist tables.
+ */
+public final class ChessGameCodec {
+    //must go up with any change to the layout: decode refuses every other version rather than misreading it
+    public static final byte VERSION = 2;
+    private static final int HEADER_BYTES = 11;
+
+    private ChessGameCodec() {
+    }
+
+    /**
+     * @return the game packed into bytes
+     */
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.occupied();
+        int pieceCount = Long.bitCount(occupied);
+        int[] moves = game.historyMoves();
+
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_BYTES + (pieceCount + 1) / 2 + 6
+                + (moves.length == 0 ? 0 : 2 + moves.length * 2));
+        bytes.put(VERSION);
+        bytes.put((byte) ((game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0) | board.castlingRights() << 1));
+        bytes.put((byte) (board.enPassantSquare() + 1));
+        bytes.putLong(occupied);
+
+        int pending = -1;
+        for (long rest = occupied; rest != 0; rest &= rest - 1) {
+            int index = board.at(Long.numberOfTrailingZeros(rest)).index();
+            if (pending < 0) {
+                pending = index;
+            } else {
+                bytes.put((byte) (pending << 4 | index));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            bytes.put((byte) (pending << 4));
+        }
+
+        bytes.putShort((short) Math.min(game.getHalfmoveClock(), Character.MAX_VALUE));
+        bytes.putShort((short) Math.min(game.getFullmoveNumber(), Character.MAX_VALUE));
+        bytes.putShort((short) moves.length);
+        if (moves.length > 0) {
+            bytes.put((byte) game.historyCastling());
+            bytes.put((byte) (game.historyEnPassant() + 1));
+            for (int move : moves) {
+                bytes.putShort((short) move);
+            }
+        }
+        return bytes.array();
+    }
+
+    /**
+     * @return the game unpacked from bytes made by {@link #encode}
+     * @throws IllegalArgumentException if the bytes are from an unknown version, are cut short, or hold
+     *                                  moves that do not lead to the stored position
+     */
+    public static ChessGame decode(byte[] encoded) {
+        if (encoded.length < HEADER_BYTES || encoded[0] != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " encoded game");
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(encoded);
+        try {
+            bytes.get();
+            int flags = bytes.get() & 0xFF;
+            int enPassant = (bytes.get() & 0xFF) - 1;
+            long occupied = bytes.getLong();
+
+            ChessBoard board = new ChessBoard();
+            int packed = 0;
+            boolean high = true;
+            for (long rest = occupied; rest != 0; rest &= rest - 1) {
+                if (high) {
+                    packed = bytes.get() & 0xFF;
+                }
+                int index = high ? packed >>> 4 : packed & 0xF;
+                high = !high;
+                if (index >= 12) {
+                    throw new IllegalArgumentException("Unknown piece " + index);
+                }
+                board.put(Long.numberOfTrailingZeros(rest), ChessPiece.of(index));
+            }
+            board.setCastlingRights(flags >>> 1);
+            board.setEnPassantSquare(enPassant);
+
+            int halfmoveClock = bytes.getChar();
+            int fullmoveNumber = bytes.getChar();
+            int[] moves = new int[bytes.getChar()];
+            int historyCastling = board.castlingRights();
+            int historyEnPassant = board.enPassantSquare();
+            if (moves.length > 0) {
+                historyCastling = bytes.get() & 0xFF;
+                historyEnPassant = (bytes.get() & 0xFF) - 1;
+            }
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = bytes.getChar();
+            }
+
+            ChessGame game = new ChessGame();
+            ChessGame.TeamColor turn = (flags & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            game.restore(board, turn, halfmoveClock, fullmoveNumber, moves, historyCastling, historyEnPassant);
+            return game;
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Encoded game is cut short");
+        }
+    }
+}
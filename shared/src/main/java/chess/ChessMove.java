@@ -49,6 +49,98 @@ public class ChessMove {
         return promote;
     }
 
+    /**
+     * Reads a move in UCI notation: the start and end squares followed by the promotion piece, such as
+     * {@code e2e4} or {@code e7e8q}
+     *
+     * @throws IllegalArgumentException if the text is not a UCI move
+     */
+    public static ChessMove parseUci(CharSequence uci) {
+        int move = Notation.parseUci(uci, 0, uci.length());
+        if (move == Notation.NO_MOVE) {
+            throw new IllegalArgumentException("Not a UCI move: " + uci);
+        }
+        return PackedMove.toChessMove(move);
+    }
+
+    /**
+     * @return this move in UCI notation, such as e7e8q
+     * @throws IllegalStateException if either end of the move is off the board
+     */
+    public String toUci() {
+        StringBuilder uci = new StringBuilder(5);
+        appendUci(uci);
+        return uci.toString();
+    }
+
+    /**
+     * Writes this move in UCI notation onto the end of a builder
+     *
+     * @throws IllegalStateException if either end of the move is off the board
+     */
+    public void appendUci(StringBuilder uci) {
+        int move = PackedMove.pack(this);
+        if (move < 0) {
+            throw new IllegalStateException("Move is off the board");
+        }
+        Notation.appendUci(uci, move);
+    }
+
+    /**
+     * Reads a move in standard algebraic notation, such as {@code Nbd7}, {@code exd8=Q+} or {@code O-O},
+     * for the team to move in a game
+     *
+     * @throws IllegalArgumentException if the text names no legal move, or more than one
+     */
+    public static ChessMove parseSan(CharSequence san, ChessGame game) {
+        return parseSan(san, 0, san.length(), game);
+    }
+
+    /**
+     * Reads a move in standard algebraic notation from part of a longer text, such as one move of PGN
+     * movetext, without copying it out
+     *
+     * @param start index of the move's first character
+     * @param end   index just past the move's last character
+     * @throws IllegalArgumentException if the text names no legal move, or more than one
+     */
+    public static ChessMove parseSan(CharSequence text, int start, int end, ChessGame game) {
+        int move = game.findSan(text, start, end);
+        if (move == Notation.AMBIGUOUS) {
+            throw new IllegalArgumentException("Ambiguous move: " + text.subSequence(start, end));
+        }
+        if (move == Notation.NO_MOVE) {
+            throw new IllegalArgumentException("Not a legal move: " + text.subSequence(start, end));
+        }
+        return PackedMove.toChessMove(move);
+    }
+
+    /**
+     * @return this move in standard algebraic notation for the position in a game, such as Nbd7 or exd8=Q+
+     * @throws IllegalArgumentException if the move is not legal in the game
+     */
+    public String toSan(ChessGame game) {
+        StringBuilder san = new StringBuilder(8);
+        appendSan(san, game);
+        return san.toString();
+    }
+
+    /**
+     * Writes this move in standard algebraic notation for the position in a game onto the end of a builder
+     *
+     * @throws IllegalArgumentException if the move is not legal in the game
+     */
+    public void appendSan(StringBuilder san, ChessGame game) {
+        int move = PackedMove.pack(this);
+        if (move < 0) {
+            throw new IllegalArgumentException("Move is off the board");
+        }
+        if (!game.isValidMove(this)) {
+            throw new IllegalArgumentException("Not a legal move: " + toUci());
+        }
+        game.appendSan(san, move);
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) {
@@ -1,8 +1,6 @@
 package chess;
 
 import java.util.Collection;
-import java.util.Objects;
-import java.util.Set;
 
 /**
  * Represents a single chess piece
@@ -11,14 +9,62 @@ import java.util.Set;
  * signature of the existing methods.
  */
 public class ChessPiece {
-    ChessGame.TeamColor color;
-    ChessPiece.PieceType type;
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    //the uppercase letter of each piece type, in PieceType order
+    static final String LETTERS = "KQBNRP";
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                ChessPiece piece = new ChessPiece(color, type);
+                PIECES[piece.index()] = piece;
+            }
+        }
+    }
+
+    final ChessGame.TeamColor color;
+    final ChessPiece.PieceType type;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.color = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a color and type instead of allocating a new piece
+     *
+     * @return the cached piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * @return the cached piece for an index from {@link #index()}
+     */
+    static ChessPiece of(int index) {
+        return PIECES[index];
+    }
+
+    /**
+     * @return the cached piece for a FEN letter, uppercase for white, or null if the letter is not a piece
+     */
+    static ChessPiece ofLetter(char letter) {
+        int type = LETTERS.indexOf(Character.toUpperCase(letter));
+        if (type < 0) {
+            return null;
+        }
+        return PIECES[(Character.isUpperCase(letter) ? 0 : 6) + type];
+    }
+
+    /**
+     * @return this piece's FEN letter, uppercase for white
+     */
+    char letter() {
+        char letter = LETTERS.charAt(type.ordinal());
+        return color == ChessGame.TeamColor.WHITE ? letter : Character.toLowerCase(letter);
+    }
+
     /**
      * The various different chess piece options
      */
@@ -45,6 +91,13 @@ public class ChessPiece {
         return type;
     }
 
+    /**
+     * @return this piece's slot in the board's bitboard array, one per color and type
+     */
+    int index() {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
     /**
      * Calculates all the positions a chess piece can move to
      * Does not take into account moves that are illegal due to leaving the king in
@@ -53,10 +106,10 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        var rules = new ChessRules(board, board.at(myPosition));
-        Set<ChessMove> possibleMoves = rules.getPossibleMoves(myPosition);
+        MoveList possibleMoves = new MoveList();
+        MoveGenerator.generate(board, myPosition.index(), possibleMoves);
 
-        return possibleMoves;
+        return possibleMoves.toCollection();
     }
 
     @Override
@@ -71,4 +124,9 @@ public class ChessPiece {
         return color == piece.color && type == piece.type;
     }
 
+    @Override
+    public int hashCode() {
+        return index();
+    }
+
 }
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -9,6 +7,16 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+    //shared stand-in for every position that has walked off the board
+    private static final ChessPosition OFF_BOARD = new ChessPosition(0, 0);
+
+    static {
+        for (int square = 0; square < POSITIONS.length; square++) {
+            POSITIONS[square] = new ChessPosition(Bitboards.row(square), Bitboards.col(square));
+        }
+    }
+
     private int row = 0;
     private int col = 0;
 
@@ -17,6 +25,25 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a position instead of allocating a new one
+     *
+     * @return the cached position, or a shared off-board position if row or col is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row > 0 && row < 9 && col > 0 && col < 9) {
+            return POSITIONS[Bitboards.square(row, col)];
+        }
+        return OFF_BOARD;
+    }
+
+    /**
+     * @return the cached position for a square index
+     */
+    static ChessPosition of(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -37,28 +64,28 @@ public class ChessPosition {
      * @return a position one to the left
      */
     public ChessPosition decrementRow() {
-        return new ChessPosition(row - 1, col);
+        return of(row - 1, col);
     }
 
     /**
      * @return a position one to the right
      */
     public ChessPosition incrementRow() {
-        return new ChessPosition(row + 1, col);
+        return of(row + 1, col);
     }
 
     /**
      * @return a position one below
      */
     public ChessPosition decrementCol() {
-        return new ChessPosition(row, col - 1);
+        return of(row, col - 1);
     }
 
     /**
      * @return a position one above
      */
     public ChessPosition incrementCol() {
-        return new ChessPosition(row, col + 1);
+        return of(row, col + 1);
     }
 
     /**
@@ -71,8 +98,16 @@ public class ChessPosition {
         return false;
     }
 
+    /**
+     * @return this position's square index, which is only meaningful if the position is on the board
+     */
+    int index() {
+        return (row - 1) * 8 + (col - 1);
+    }
+
     @Override
     public boolean equals(Object object) {
+        //cached positions are usually compared against themselves
         if (this == object) {
             return true;
         }
@@ -85,6 +120,6 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return index();
     }
 }
@@ -0,0 +1,442 @@
+package chess;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming Gson adapters that write chess types as short strings instead of walking their fields:
+ * <ul>
+ *     <li>a piece is its letter, uppercase for white: {@code "N"}, {@code "p"}</li>
+ *     <li>a position is its square name: {@code "e4"}</li>
+ *     <li>a move is its two squares and promotion letter: {@code "e2e4"}, {@code "e7e8q"}</li>
+ *     <li>a board is 64 piece letters from row 8 down to row 1 with {@code '.'} for empty squares, then
+ *     the castling rights and en passant square: {@code "rnbqkbnr...RNBQKBNR KQkq -"}</li>
+ * </ul>
+ * A game is a small object holding the turn, its board string and its move counters, with the repetition
+ * history kept as the moves that built it rather than as position keys. Boards and games written by
+ * reflective Gson before these adapters existed can still be read.
+ */
+public final class ChessTypeAdapters {
+    private static final int BOARD_SQUARES = 64;
+
+    private ChessTypeAdapters() {
+    }
+
+    /**
+     * Adds the chess adapters to a builder
+     *
+     * @return the same builder
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(ChessPiece.class, new PieceAdapter().nullSafe())
+                .registerTypeAdapter(ChessPosition.class, new PositionAdapter().nullSafe())
+                .registerTypeAdapter(ChessMove.class, new MoveAdapter().nullSafe())
+                .registerTypeAdapter(ChessBoard.class, new BoardAdapter().nullSafe())
+                .registerTypeAdapter(ChessGame.class, new GameAdapter().nullSafe());
+    }
+
+    private static void appendSquare(StringBuilder text, int row, int col) {
+        text.append((char) ('a' + col - 1)).append(row);
+    }
+
+    /**
+     * @return the square index named at offset, or -1 if there is no square name there
+     */
+    private static int square(String text, int offset) {
+        if (offset + 2 > text.length()) {
+            return -1;
+        }
+        int col = text.charAt(offset) - 'a';
+        int row = text.charAt(offset + 1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            return -1;
+        }
+        return row * 8 + col;
+    }
+
+    private static JsonParseException malformed(String what, String text) {
+        return new JsonParseException("Malformed " + what + ": " + text);
+    }
+
+    private static class PieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.value(String.valueOf(piece.letter()));
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            ChessPiece piece = text.length() == 1 ? ChessPiece.ofLetter(text.charAt(0)) : null;
+            if (piece == null) {
+                throw malformed("piece", text);
+            }
+            return piece;
+        }
+    }
+
+    /**
+     * Positions off the board, which only come up while validating input, are written as "row,column"
+     */
+    private static class PositionAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            StringBuilder text = new StringBuilder(4);
+            if (position.onBoard()) {
+                appendSquare(text, position.getRow(), position.getColumn());
+            } else {
+                text.append(position.getRow()).append(',').append(position.getColumn());
+            }
+            out.value(text.toString());
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            int square = text.length() == 2 ? square(text, 0) : -1;
+            if (square >= 0) {
+                return ChessPosition.of(square);
+            }
+            int comma = text.indexOf(',');
+            try {
+                return new ChessPosition(Integer.parseInt(text.substring(0, comma)),
+                        Integer.parseInt(text.substring(comma + 1)));
+            } catch (RuntimeException ex) {
+                throw malformed("position", text);
+            }
+        }
+    }
+
+    /**
+     * Moves with an end off the board cannot be written as two square names, so they are written as an
+     * object of their positions instead
+     */
+    private static class MoveAdapter extends TypeAdapter<ChessMove> {
+        private final TypeAdapter<ChessPosition> positions = new PositionAdapter().nullSafe();
+
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException {
+            ChessPosition start = move.getStartPosition();
+            ChessPosition end = move.getEndPosition();
+            if (start == null || end == null || !start.onBoard() || !end.onBoard()) {
+                out.beginObject();
+                out.name("start");
+                positions.write(out, start);
+                out.name("end");
+                positions.write(out, end);
+                out.name("promotion").value(move.getPromotionPiece() == null ? null : move.getPromotionPiece().name());
+                out.endObject();
+                return;
+            }
+
+            out.value(move.toUci());
+        }
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                return readObject(in);
+            }
+            String text = in.nextString();
+            try {
+                return ChessMove.parseUci(text);
+            } catch (IllegalArgumentException ex) {
+                throw malformed("move", text);
+            }
+        }
+
+        private ChessMove readObject(JsonReader in) throws IOException {
+            ChessPosition start = null;
+            ChessPosition end = null;
+            ChessPiece.PieceType promotion = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "start" -> start = positions.read(in);
+                    case "end" -> end = positions.read(in);
+                    case "promotion" -> promotion = ChessPiece.PieceType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChessMove(start, end, promotion);
+        }
+    }
+
+    private static class BoardAdapter extends TypeAdapter<ChessBoard> {
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.value(format(board));
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                return readLegacy(in);
+            }
+            return parse(in.nextString());
+        }
+
+        /**
+         * Reads a board the way reflective Gson wrote it before these adapters, as an 8x8 array under
+         * {@code "board"} with row 1 first and each piece an object such as {@code {"color":"WHITE","type":"ROOK"}}.
+         * Those boards kept no castling rights, so they are worked out from where the kings and rooks stand.
+         */
+        static ChessBoard readLegacy(JsonReader in) throws IOException {
+            ChessBoard board = new ChessBoard();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!in.nextName().equals("board") || in.peek() == JsonToken.NULL) {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                for (int row = 1; in.hasNext(); row++) {
+                    in.beginArray();
+                    for (int col = 1; in.hasNext(); col++) {
+                        ChessPiece piece = readLegacyPiece(in);
+                        if (piece == null) {
+                            continue;
+                        }
+                        if (row > 8 || col > 8) {
+                            throw malformed("board", "piece at row " + row + " column " + col);
+                        }
+                        board.put(Bitboards.square(row, col), piece);
+                    }
+                    in.endArray();
+                }
+                in.endArray();
+            }
+            in.endObject();
+            board.inferCastlingRights();
+            return board;
+        }
+
+        private static ChessPiece readLegacyPiece(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String color = null;
+            String type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "color" -> color = in.nextString();
+                    case "type" -> type = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            try {
+                return ChessPiece.of(ChessGame.TeamColor.valueOf(color), ChessPiece.PieceType.valueOf(type));
+            } catch (RuntimeException ex) {
+                throw malformed("piece", color + " " + type);
+            }
+        }
+
+        static String format(ChessBoard board) {
+            StringBuilder text = new StringBuilder(BOARD_SQUARES + 8);
+            for (int row = 8; row >= 1; row--) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPiece piece = board.at(Bitboards.square(row, col));
+                    text.append(piece == null ? '.' : piece.letter());
+                }
+            }
+
+            text.append(' ');
+            appendRights(text, board.castlingRights(), board.enPassantSquare());
+            return text.toString();
+        }
+
+        /**
+         * Writes castling rights and an en passant square the way FEN does: {@code "KQkq e3"}, {@code "- -"}
+         */
+        static void appendRights(StringBuilder text, int castling, int enPassant) {
+            text.append((castling & ChessBoard.WHITE_KINGSIDE) != 0 ? "K" : "")
+                    .append((castling & ChessBoard.WHITE_QUEENSIDE) != 0 ? "Q" : "")
+                    .append((castling & ChessBoard.BLACK_KINGSIDE) != 0 ? "k" : "")
+                    .append((castling & ChessBoard.BLACK_QUEENSIDE) != 0 ? "q" : "")
+                    .append(castling == 0 ? "-" : "");
+
+            text.append(' ');
+            if (enPassant < 0) {
+                text.append('-');
+            } else {
+                appendSquare(text, Bitboards.row(enPassant), Bitboards.col(enPassant));
+            }
+        }
+
+        static ChessBoard parse(String text) {
+            if (text.length() < BOARD_SQUARES) {
+                throw malformed("board", text);
+            }
+            ChessBoard board = new ChessBoard();
+            for (int i = 0; i < BOARD_SQUARES; i++) {
+                char letter = text.charAt(i);
+                if (letter == '.') {
+                    continue;
+                }
+                ChessPiece piece = ChessPiece.ofLetter(letter);
+                if (piece == null) {
+                    throw malformed("board", text);
+                }
+                board.put(Bitboards.square(8 - i / 8, i % 8 + 1), piece);
+            }
+
+            //a board written without rights gets them from where its kings and rooks stand
+            String[] state = text.substring(BOARD_SQUARES).trim().split(" ");
+            if (state.length < 2) {
+                board.inferCastlingRights();
+                return board;
+            }
+            board.setCastlingRights(parseCastling(state[0], text));
+            board.setEnPassantSquare(parseEnPassant(state[1], text));
+            return board;
+        }
+
+        static int parseCastling(String rights, String text) {
+            int castling = 0;
+            for (char right : rights.toCharArray()) {
+                castling |= switch (right) {
+                    case 'K' -> ChessBoard.WHITE_KINGSIDE;
+                    case 'Q' -> ChessBoard.WHITE_QUEENSIDE;
+                    case 'k' -> ChessBoard.BLACK_KINGSIDE;
+                    case 'q' -> ChessBoard.BLACK_QUEENSIDE;
+                    case '-' -> 0;
+                    default -> throw malformed("castling rights", text);
+                };
+            }
+            return castling;
+        }
+
+        static int parseEnPassant(String square, String text) {
+            if (square.equals("-")) {
+                return -1;
+            }
+            int enPassant = square.length() == 2 ? square(square, 0) : -1;
+            if (enPassant < 0) {
+                throw malformed("en passant square", text);
+            }
+            return enPassant;
+        }
+    }
+
+    /**
+     * The repetition history is written as the moves since the last capture or pawn move, after the castling
+     * rights and en passant square from before the first of them, and rebuilt from those when read
+     */
+    private static class GameAdapter extends TypeAdapter<ChessGame> {
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            out.beginObject();
+            out.name("turn").value(game.getTeamTurn().name());
+            out.name("board").value(BoardAdapter.format(game.getBoard()));
+            out.name("halfmoveClock").value(game.getHalfmoveClock());
+            out.name("fullmoveNumber").value(game.getFullmoveNumber());
+            int[] moves = game.historyMoves();
+            if (moves.length > 0) {
+                StringBuilder text = new StringBuilder(8);
+                BoardAdapter.appendRights(text, game.historyCastling(), game.historyEnPassant());
+                out.name("historyFrom").value(text.toString());
+                out.name("history").beginArray();
+                for (int move : moves) {
+                    text.setLength(0);
+                    Notation.appendUci(text, move);
+                    out.value(text.toString());
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+            ChessBoard board = null;
+            int halfmoveClock = 0;
+            int fullmoveNumber = 1;
+            String historyFrom = null;
+            int[] history = new int[0];
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "turn" -> turn = ChessGame.TeamColor.valueOf(in.nextString());
+                    case "board" -> board = in.peek() == JsonToken.BEGIN_OBJECT
+                            ? BoardAdapter.readLegacy(in) : BoardAdapter.parse(in.nextString());
+                    case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                    case "fullmoveNumber" -> fullmoveNumber = in.nextInt();
+                    case "historyFrom" -> historyFrom = in.nextString();
+                    case "history" -> history = readHistory(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            ChessGame game = new ChessGame();
+            if (board == null) {
+                game.setTeamTurn(turn);
+                return game;
+            }
+            int castling = board.castlingRights();
+            int enPassant = board.enPassantSquare();
+            if (history.length > 0) {
+                String[] rights = historyFrom == null ? new String[0] : historyFrom.split(" ");
+                if (rights.length != 2) {
+                    throw malformed("history start", String.valueOf(historyFrom));
+                }
+                castling = BoardAdapter.parseCastling(rights[0], historyFrom);
+                enPassant = BoardAdapter.parseEnPassant(rights[1], historyFrom);
+            }
+            try {
+                game.restore(board, turn, halfmoveClock, fullmoveNumber, history, castling, enPassant);
+            } catch (IllegalArgumentException ex) {
+                throw new JsonParseException(ex.getMessage(), ex);
+            }
+            return game;
+        }
+
+        private static int[] readHistory(JsonReader in) throws IOException {
+            int[] history = new int[16];
+            int size = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                String text = in.nextString();
+                int move = Notation.parseUci(text, 0, text.length());
+                if (move == Notation.NO_MOVE) {
+                    throw malformed("move", text);
+                }
+                if (size == history.length) {
+                    history = Arrays.copyOf(history, size * 2);
+                }
+                history[size++] = move;
+            }
+            in.endArray();
+            return Arrays.copyOf(history, size);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams positions out of an EPD file and checks the engine against the perft counts recorded with them.
+ * Each line is the first four FEN fields followed by operations separated by semicolons, as in the
+ * widely used perft suite:
+ * <pre>
+ * rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - ;D1 20 ;D2 400 ;D3 8902
+ * </pre>
+ * {@code hmvc} and {@code fmvn} set the move counters. Other operations, such as {@code bm} and {@code id},
+ * are skipped. Lines are read into one reused buffer and parsed into one reused game, so the only
+ * allocation per position is the counter used for the checks.
+ */
+public class EpdSuite {
+    private final int maxDepth;
+    private final ChessGame game = new ChessGame();
+    private final StringBuilder line = new StringBuilder(256);
+    private final List<Failure> failures = new ArrayList<>();
+    private int positions = 0;
+    private int checks = 0;
+    private long nodes = 0;
+
+    /**
+     * A perft count that did not match the one recorded in the file
+     *
+     * @param line     the line number, starting at 1
+     * @param epd      the whole line
+     * @param depth    the depth counted to
+     * @param expected the count recorded in the file
+     * @param actual   the count the engine found
+     */
+    public record Failure(int line, String epd, int depth, long expected, long actual) {
+    }
+
+    /**
+     * @param maxDepth the deepest perft count to check, deeper ones in the file are skipped
+     */
+    public EpdSuite(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Checks every position in a stream of EPD lines, skipping blank lines and lines starting with '#'
+     *
+     * @return the counts that did not match, in file order
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if a line is not valid EPD
+     */
+    public List<Failure> run(Reader in) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        int lineNumber = 0;
+        while (readLine(reader)) {
+            lineNumber++;
+            int start = Fen.skipSpaces(line, 0);
+            if (start == line.length() || line.charAt(start) == '#') {
+                continue;
+            }
+            check(lineNumber, Fen.parsePosition(line, start, game));
+        }
+        return failures;
+    }
+
+    /**
+     * Reads the next line into the reused buffer, without its line ending
+     *
+     * @return false if the stream has ended
+     */
+    private boolean readLine(BufferedReader reader) throws IOException {
+        line.setLength(0);
+        int next = reader.read();
+        if (next < 0) {
+            return false;
+        }
+        while (next >= 0 && next != '\n') {
+            if (next != '\r') {
+                line.append((char) next);
+            }
+            next = reader.read();
+        }
+        return true;
+    }
+
+    /**
+     * Runs the operations after the position fields of the current line
+     */
+    private void check(int lineNumber, int at) {
+        positions++;
+        Perft perft = null;
+        while (at < line.length()) {
+            at = skipSeparators(at);
+            int opcode = at;
+            while (at < line.length() && line.charAt(at) != ' ' && line.charAt(at) != ';') {
+                at++;
+            }
+            int operand = Fen.skipSpaces(line, at);
+            at = skipOperand(operand);
+            if (at == opcode) {
+                continue;
+            }
+
+            if (line.charAt(opcode) == 'D' && operand > opcode + 1 && operand < at) {
+                int depth = Fen.parseNumber(line, opcode + 1);
+                if (depth > maxDepth) {
+                    continue;
+                }
+                long expected = parseLong(operand);
+                if (perft == null) {
+                    //the counter makes and unmakes moves on the game's own board, which is left as it was
+                    perft = new Perft(game.getBoard(), game.getTeamTurn());
+                }
+                long actual = perft.perft(depth);
+                checks++;
+                nodes += actual;
+                if (actual != expected) {
+                    failures.add(new Failure(lineNumber, line.toString(), depth, expected, actual));
+                }
+            } else if (isOpcode(opcode, "hmvc")) {
+                game.load(game.getTeamTurn(), Fen.parseNumber(line, operand), game.getFullmoveNumber());
+            } else if (isOpcode(opcode, "fmvn")) {
+                game.load(game.getTeamTurn(), game.getHalfmoveClock(), Fen.parseNumber(line, operand));
+            }
+        }
+    }
+
+    private int skipSeparators(int at) {
+        while (at < line.length() && (line.charAt(at) == ' ' || line.charAt(at) == ';')) {
+            at++;
+        }
+        return at;
+    }
+
+    /**
+     * @return the index of the semicolon ending an operand, or the end of the line. Semicolons inside
+     * quoted strings do not end it.
+     */
+    private int skipOperand(int at) {
+        boolean quoted = false;
+        while (at < line.length() && (quoted || line.charAt(at) != ';')) {
+            if (line.charAt(at) == '"') {
+                quoted = !quoted;
+            }
+            at++;
+        }
+        return at;
+    }
+
+    private boolean isOpcode(int at, String opcode) {
+        int end = at + opcode.length();
+        if (end > line.length() || (end < line.length() && line.charAt(end) != ' ' && line.charAt(end) != ';')) {
+            return false;
+        }
+        for (int i = 0; i < opcode.length(); i++) {
+            if (line.charAt(at + i) != opcode.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLong(int at) {
+        long number = 0;
+        int i = at;
+        while (i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            number = number * 10 + line.charAt(i++) - '0';
+        }
+        if (i == at) {
+            throw new IllegalArgumentException("Expected a count: " + line);
+        }
+        return number;
+    }
+
+    /**
+     * @return how many positions have been read
+     */
+    public int getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return how many perft counts have been checked
+     */
+    public int getChecks() {
+        return checks;
+    }
+
+    /**
+     * @return the total nodes counted across every check
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Checks an EPD file and prints every mismatch along with a summary
+     *
+     * @param args the file to read, followed by the deepest perft count to check (3 if left out)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: EpdSuite <file.epd> [max depth]");
+            return;
+        }
+        EpdSuite suite = new EpdSuite(args.length > 1 ? Integer.parseInt(args[1]) : 3);
+
+        long start = System.nanoTime();
+        List<Failure> failures;
+        try (Reader in = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            failures = suite.run(in);
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        for (Failure failure : failures) {
+            System.out.printf("Line %d, depth %d: expected %d, got %d%n  %s%n", failure.line(), failure.depth(),
+                    failure.expected(), failure.actual(), failure.epd());
+        }
+        System.out.printf("Positions: %d, checks: %d, failures: %d%n", suite.getPositions(), suite.getChecks(),
+                failures.size());
+        System.out.printf("Time: %.1f ms%n", elapsed / 1e6);
+        System.out.printf("Nodes/second: %.0f%n", suite.getNodes() * 1e9 / elapsed);
+    }
+}
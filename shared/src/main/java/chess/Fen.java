@@ -0,0 +1,274 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, such as the starting position
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ * <p>
+ * Parsing walks the text once and places pieces straight onto the game's board, so
+ * {@link #parseInto} can fill one game with position after position without allocating.
+ * The two move counters at the end are optional, since EPD files leave them out.
+ */
+public final class Fen {
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    //longest text a counter may have, well past any real game, so parsing can never overflow
+    private static final int MAX_DIGITS = 9;
+
+    private Fen() {
+    }
+
+    /**
+     * @return a new game set up from a FEN string
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame parse(CharSequence fen) {
+        ChessGame game = new ChessGame();
+        parseInto(fen, game);
+        return game;
+    }
+
+    /**
+     * Sets up an existing game from a FEN string, reusing its board. If the string is not valid FEN the
+     * game is left holding whatever part of the position was read.
+     *
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static void parseInto(CharSequence fen, ChessGame game) {
+        int at = skipSpaces(fen, parsePosition(fen, 0, game));
+        if (at == fen.length()) {
+            return;
+        }
+        int halfmoveClock = parseNumber(fen, at);
+        at = skipSpaces(fen, skipDigits(fen, at));
+        int fullmoveNumber = at == fen.length() ? 1 : parseNumber(fen, at);
+        if (at < fen.length() && skipSpaces(fen, skipDigits(fen, at)) != fen.length()) {
+            throw invalid(fen);
+        }
+        game.load(game.getTeamTurn(), halfmoveClock, fullmoveNumber);
+    }
+
+    /**
+     * Reads the four position fields (placement, turn, castling rights and en passant square) into a game,
+     * setting both move counters back to their starting values
+     *
+     * @param start where the placement field begins
+     * @return the index just past the en passant field
+     * @throws IllegalArgumentException if the fields are not valid FEN
+     */
+    static int parsePosition(CharSequence fen, int start, ChessGame game) {
+        ChessBoard board = game.getBoard();
+        board.clearAll();
+        int at = parsePlacement(fen, start, board);
+
+        ChessGame.TeamColor turn = switch (charAt(fen, at)) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw invalid(fen);
+        };
+        at = expectSpace(fen, at + 1);
+
+        int rights = 0;
+        if (charAt(fen, at) == '-') {
+            at++;
+        } else if (charAt(fen, at) == ' ') {
+            throw invalid(fen);
+        } else {
+            for (char right = charAt(fen, at); right != ' '; right = charAt(fen, ++at)) {
+                rights |= switch (right) {
+                    case 'K' -> ChessBoard.WHITE_KINGSIDE;
+                    case 'Q' -> ChessBoard.WHITE_QUEENSIDE;
+                    case 'k' -> ChessBoard.BLACK_KINGSIDE;
+                    case 'q' -> ChessBoard.BLACK_QUEENSIDE;
+                    default -> throw invalid(fen);
+                };
+            }
+        }
+        at = expectSpace(fen, at);
+
+        int enPassant = -1;
+        if (charAt(fen, at) == '-') {
+            at++;
+        } else {
+            enPassant = square(fen, at);
+            at += 2;
+        }
+        if (at < fen.length() && fen.charAt(at) != ' ') {
+            throw invalid(fen);
+        }
+
+        //rights for a king or rook that has left home could never be used, so they are dropped to keep
+        //position keys equal to those of the same position reached by playing moves
+        board.inferCastlingRights();
+        board.setCastlingRights(rights & board.castlingRights());
+        board.setEnPassantSquare(capturable(board, turn, enPassant) ? enPassant : -1);
+        game.load(turn, 0, 1);
+        return at;
+    }
+
+    /**
+     * @return the index just past the space after the placement field
+     */
+    private static int parsePlacement(CharSequence fen, int at, ChessBoard board) {
+        int row = 8;
+        int col = 1;
+        for (char letter = charAt(fen, at); letter != ' '; letter = charAt(fen, ++at)) {
+            if (letter == '/') {
+                if (col != 9 || row == 1) {
+                    throw invalid(fen);
+                }
+                row--;
+                col = 1;
+            } else if (letter >= '1' && letter <= '8') {
+                col += letter - '0';
+            } else {
+                ChessPiece piece = ChessPiece.ofLetter(letter);
+                if (piece == null || col > 8) {
+                    throw invalid(fen);
+                }
+                board.put(Bitboards.square(row, col++), piece);
+            }
+            if (col > 9) {
+                throw invalid(fen);
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw invalid(fen);
+        }
+        return at + 1;
+    }
+
+    /**
+     * FEN names the square behind any pawn that just moved two squares, but the board only keeps it when a
+     * pawn of the side to move can actually capture there
+     */
+    private static boolean capturable(ChessBoard board, ChessGame.TeamColor turn, int square) {
+        if (square < 0 || Bitboards.row(square) != (turn == ChessGame.TeamColor.WHITE ? 6 : 3)) {
+            return false;
+        }
+        ChessGame.TeamColor moved = MoveGenerator.opponent(turn);
+        int pawn = turn == ChessGame.TeamColor.WHITE ? square - 8 : square + 8;
+        return board.at(pawn) == ChessPiece.of(moved, ChessPiece.PieceType.PAWN)
+                && (Bitboards.pawnAttacks(moved, square) & board.bitboard(turn, ChessPiece.PieceType.PAWN)) != 0;
+    }
+
+    /**
+     * @return the game's position as a FEN string
+     */
+    public static String format(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        appendTo(fen, game);
+        return fen.toString();
+    }
+
+    /**
+     * Writes the game's position as FEN onto the end of a builder
+     */
+    public static void appendTo(StringBuilder fen, ChessGame game) {
+        ChessBoard board = game.getBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.at(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(piece.letter());
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        int rights = board.castlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        } else {
+            appendIf(fen, rights, ChessBoard.WHITE_KINGSIDE, 'K');
+            appendIf(fen, rights, ChessBoard.WHITE_QUEENSIDE, 'Q');
+            appendIf(fen, rights, ChessBoard.BLACK_KINGSIDE, 'k');
+            appendIf(fen, rights, ChessBoard.BLACK_QUEENSIDE, 'q');
+        }
+
+        fen.append(' ');
+        int enPassant = board.enPassantSquare();
+        if (enPassant < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + Bitboards.col(enPassant) - 1)).append(Bitboards.row(enPassant));
+        }
+        fen.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+    }
+
+    private static void appendIf(StringBuilder fen, int rights, int right, char letter) {
+        if ((rights & right) != 0) {
+            fen.append(letter);
+        }
+    }
+
+    /**
+     * @return the square index named at an index, such as e3
+     */
+    static int square(CharSequence text, int at) {
+        int col = charAt(text, at) - 'a';
+        int row = charAt(text, at + 1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            throw invalid(text);
+        }
+        return row * 8 + col;
+    }
+
+    /**
+     * @return the character at an index, or a space past the end so a missing field reads as an empty one
+     */
+    private static char charAt(CharSequence text, int at) {
+        return at < text.length() ? text.charAt(at) : ' ';
+    }
+
+    private static int expectSpace(CharSequence text, int at) {
+        if (at >= text.length() || text.charAt(at) != ' ') {
+            throw invalid(text);
+        }
+        return at + 1;
+    }
+
+    static int skipSpaces(CharSequence text, int at) {
+        while (at < text.length() && text.charAt(at) == ' ') {
+            at++;
+        }
+        return at;
+    }
+
+    private static int skipDigits(CharSequence text, int at) {
+        while (at < text.length() && text.charAt(at) >= '0' && text.charAt(at) <= '9') {
+            at++;
+        }
+        return at;
+    }
+
+    /**
+     * @return the whole number starting at an index
+     */
+    static int parseNumber(CharSequence text, int at) {
+        int end = skipDigits(text, at);
+        if (end == at || end - at > MAX_DIGITS) {
+            throw invalid(text);
+        }
+        int number = 0;
+        for (int i = at; i < end; i++) {
+            number = number * 10 + text.charAt(i) - '0';
+        }
+        return number;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text) {
+        return new IllegalArgumentException("Not a valid FEN string: " + text);
+    }
+}
@@ -0,0 +1,276 @@
+package chess;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Generates only legal moves for one team, so moves never have to be tried on the board and tested for check.
+ * <p>
+ * {@link #prepare} works out once per position which pieces are pinned against the king and which squares
+ * a move has to land on to answer a check. Every piece's moves are then cut down with those masks, and king
+ * moves are limited to squares the other team does not attack. Castling and en passant captures come from
+ * the castling rights and en passant square the board keeps, so the move history is never consulted.
+ * <p>
+ * One generator can be reused for any number of positions, but it is not safe to share between threads.
+ */
+public class LegalMoveGenerator {
+    private static final long ALL_SQUARES = -1L;
+
+    //for each pinned square, the line between the king and the pinning piece (including the pinning piece)
+    private final long[] pinRays = new long[64];
+    private ChessBoard board;
+    private ChessGame.TeamColor color;
+    private ChessGame.TeamColor enemy;
+    private int king;
+    private long checkers;
+    private long checkMask;
+    private long pinned;
+    //remembered pseudo-legal targets to start from, if the generator belongs to a game
+    private SquareMoveCache targetCache;
+
+    /**
+     * Works out the pins and check answers for a team on a board. Must be called again whenever the board changes.
+     *
+     * @param board the board to generate on
+     * @param color the team to generate moves for
+     * @return this generator
+     */
+    public LegalMoveGenerator prepare(ChessBoard board, ChessGame.TeamColor color) {
+        this.board = board;
+        this.color = color;
+        this.enemy = MoveGenerator.opponent(color);
+        this.king = board.kingSquare(color);
+        this.pinned = 0;
+
+        //without a king nothing can be pinned or in check, so every move is legal
+        if (king < 0) {
+            checkers = 0;
+            checkMask = ALL_SQUARES;
+            return this;
+        }
+
+        long occupied = board.occupied();
+        checkers = ChessRules.attackers(board, king, enemy, occupied);
+        if (checkers == 0) {
+            checkMask = ALL_SQUARES;
+        } else if ((checkers & (checkers - 1)) == 0) {
+            //a single check can be answered by capturing the checker or blocking its ray
+            checkMask = checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+        } else {
+            //a double check can only be answered by moving the king
+            checkMask = 0;
+        }
+
+        //a piece is pinned if it is the only piece between the king and an enemy slider
+        long queens = board.bitboard(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(king, 0) & (board.bitboard(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(king, 0) & (board.bitboard(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long own = board.occupancy(color);
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long ray = Bitboards.between(king, sniper);
+            long blockers = ray & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pinned |= blockers;
+                pinRays[Long.numberOfTrailingZeros(blockers)] = ray | Bitboards.bit(sniper);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Starts every piece's moves from the targets remembered in cache instead of generating them again
+     *
+     * @return this generator
+     */
+    LegalMoveGenerator using(SquareMoveCache cache) {
+        this.targetCache = cache;
+        return this;
+    }
+
+    /**
+     * @return true if the prepared team's king is attacked
+     */
+    public boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Adds every legal move for the prepared team's piece on a square to moves
+     *
+     * @param from  square index of the piece to move
+     * @param moves buffer to write the moves into
+     */
+    public void generate(int from, MoveList moves) {
+        ChessPiece piece = board.at(from);
+        if (piece == null || piece.getTeamColor() != color) {
+            return;
+        }
+
+        MoveGenerator.addMoves(from, legalTargets(from, piece),
+                piece.getPieceType() == ChessPiece.PieceType.PAWN, moves);
+    }
+
+    /**
+     * Adds every legal move for the prepared team to moves
+     *
+     * @param moves buffer to write the moves into
+     */
+    public void generate(MoveList moves) {
+        long teamPieces = board.occupancy(color);
+        while (teamPieces != 0) {
+            int from = Long.numberOfTrailingZeros(teamPieces);
+            teamPieces &= teamPieces - 1;
+            generate(from, moves);
+        }
+    }
+
+    /**
+     * Looks for a legal move one piece at a time, stopping at the first piece that has one
+     *
+     * @return true if the prepared team has at least one legal move
+     */
+    public boolean hasLegalMove() {
+        //in double check only the king can move, so try it before anything else
+        if (king >= 0 && legalTargets(king, board.at(king)) != 0) {
+            return true;
+        }
+        long teamPieces = board.occupancy(color) & ~(king < 0 ? 0 : Bitboards.bit(king));
+        while (teamPieces != 0) {
+            int from = Long.numberOfTrailingZeros(teamPieces);
+            teamPieces &= teamPieces - 1;
+            if (legalTargets(from, board.at(from)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walks the prepared team's legal moves lazily, generating one piece's moves at a time as the
+     * iterator reaches it. The board must not change while the iterator is in use.
+     *
+     * @return an iterator over the legal moves
+     */
+    public Iterator<ChessMove> iterator() {
+        return new Iterator<>() {
+            private final MoveList pieceMoves = new MoveList(32);
+            private long remaining = board.occupancy(color);
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (next == pieceMoves.size() && remaining != 0) {
+                    int from = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    pieceMoves.clear();
+                    next = 0;
+                    generate(from, pieceMoves);
+                }
+                return next < pieceMoves.size();
+            }
+
+            @Override
+            public ChessMove next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return PackedMove.toChessMove(pieceMoves.get(next++));
+            }
+        };
+    }
+
+    /**
+     * @return the squares a piece of the prepared team can legally move to
+     */
+    private long legalTargets(int from, ChessPiece piece) {
+        long targets = targetCache != null ? targetCache.targets(board, from, piece)
+                : MoveGenerator.targets(board, from, piece);
+        if (from == king) {
+            return safeKingSquares(targets) | castlingTargets();
+        }
+
+        targets &= checkMask;
+        if ((pinned & Bitboards.bit(from)) != 0) {
+            targets &= pinRays[from];
+        }
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            targets |= enPassantTarget(from);
+        }
+        return targets;
+    }
+
+    /**
+     * @return the squares the king can castle to: the right is still held, the king is not in check, the
+     * squares up to the rook are empty and the king does not pass over or land on an attacked square
+     */
+    private long castlingTargets() {
+        int home = color == ChessGame.TeamColor.WHITE ? Bitboards.square(1, 5) : Bitboards.square(8, 5);
+        //shifted so the team's rights sit where white's do
+        int rights = board.castlingRights() >>> (color.ordinal() * 2);
+        if (checkers != 0 || king != home || (rights & 3) == 0) {
+            return 0;
+        }
+
+        ChessPiece rook = ChessPiece.of(color, ChessPiece.PieceType.ROOK);
+        long occupied = board.occupied();
+        long targets = 0;
+        if ((rights & ChessBoard.WHITE_KINGSIDE) != 0 && board.at(home + 3) == rook
+                && (Bitboards.between(home, home + 3) & occupied) == 0
+                && !ChessRules.isAttacked(board, home + 1, enemy, occupied)
+                && !ChessRules.isAttacked(board, home + 2, enemy, occupied)) {
+            targets |= Bitboards.bit(home + 2);
+        }
+        if ((rights & ChessBoard.WHITE_QUEENSIDE) != 0 && board.at(home - 4) == rook
+                && (Bitboards.between(home, home - 4) & occupied) == 0
+                && !ChessRules.isAttacked(board, home - 1, enemy, occupied)
+                && !ChessRules.isAttacked(board, home - 2, enemy, occupied)) {
+            targets |= Bitboards.bit(home - 2);
+        }
+        return targets;
+    }
+
+    /**
+     * An en passant capture takes a pawn off a square other than the one the capturing pawn lands on,
+     * which the check and pin masks do not cover, so it is tested by looking for attacks on the king with
+     * both pawns moved
+     *
+     * @return the en passant square if the pawn on from can legally capture there, otherwise nothing
+     */
+    private long enPassantTarget(int from) {
+        int target = board.enPassantSquare();
+        if (target < 0 || (Bitboards.pawnAttacks(color, from) & Bitboards.bit(target)) == 0) {
+            return 0;
+        }
+        int captured = ChessBoard.enPassantCaptured(from, target);
+        if (board.at(captured) != ChessPiece.of(enemy, ChessPiece.PieceType.PAWN)) {
+            return 0;
+        }
+        if (king < 0) {
+            return Bitboards.bit(target);
+        }
+
+        long occupied = (board.occupied() & ~Bitboards.bit(from) & ~Bitboards.bit(captured)) | Bitboards.bit(target);
+        long attackers = ChessRules.attackers(board, king, enemy, occupied) & ~Bitboards.bit(captured);
+        return attackers == 0 ? Bitboards.bit(target) : 0;
+    }
+
+    /**
+     * @return the squares out of targets that the king can step to without being attacked
+     */
+    private long safeKingSquares(long targets) {
+        //take the king off the board so sliders checking it also attack the squares behind it
+        long occupied = board.occupied() & ~Bitboards.bit(king);
+        long safe = 0;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!ChessRules.isAttacked(board, to, enemy, occupied)) {
+                safe |= Bitboards.bit(to);
+            }
+        }
+        return safe;
+    }
+}
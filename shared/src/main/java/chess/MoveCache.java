@@ -0,0 +1,109 @@
+package chess;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache from position keys to the legal moves and status of the team to move, shared by every
+ * {@link ChessGame} in the JVM so games passing through the same position only generate its moves once.
+ * <p>
+ * Each key maps to a single slot and a new entry simply replaces whatever was in its slot, so the cache
+ * never grows past its capacity and never needs locking. Entries are immutable, which makes it safe for
+ * any number of threads to read and write at once.
+ */
+public class MoveCache {
+    private static final MoveCache SHARED = new MoveCache(1 << 15);
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public MoveCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * @return the cache shared by every game in this JVM
+     */
+    public static MoveCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * The status of the team whose moves are cached
+     */
+    enum Status {
+        NONE,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    /**
+     * A cached position: its key, the packed legal moves of the team to move and that team's status
+     */
+    record Entry(long key, int[] moves, Status status) {
+    }
+
+    /**
+     * @param key the position key, which must include whose moves are being looked up
+     * @return the cached entry, or null if the position is not cached
+     */
+    Entry get(long key) {
+        Entry entry = slots.get(slot(key));
+        if (entry != null && entry.key() == key) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a position, replacing whatever was in its slot
+     *
+     * @return the stored entry
+     */
+    Entry put(long key, MoveList moves, Status status) {
+        int[] packed = new int[moves.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = moves.get(i);
+        }
+        Entry entry = new Entry(key, packed, status);
+        slots.set(slot(key), entry);
+        return entry;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Empties every slot and resets the hit and miss counters
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
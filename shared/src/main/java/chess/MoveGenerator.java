@@ -0,0 +1,115 @@
+package chess;
+
+/**
+ * Generates moves straight into a caller supplied {@link MoveList} as packed ints.
+ * <p>
+ * Moves generated here follow how each piece moves but do not take into account
+ * moves that are illegal due to leaving the king in danger.
+ */
+public final class MoveGenerator {
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK
+    };
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds every move for the piece standing on a square to moves
+     *
+     * @param board the board to generate on
+     * @param from  square index of the piece to move
+     * @param moves buffer to write the moves into
+     */
+    public static void generate(ChessBoard board, int from, MoveList moves) {
+        ChessPiece piece = board.at(from);
+        if (piece == null) {
+            return;
+        }
+
+        addMoves(from, targets(board, from, piece), piece.getPieceType() == ChessPiece.PieceType.PAWN, moves);
+    }
+
+    /**
+     * Adds one move per target square, expanding pawn moves onto the last row into every promotion
+     *
+     * @param from    square index of the piece to move
+     * @param targets squares the piece can move to
+     * @param pawn    whether the moving piece is a pawn
+     * @param moves   buffer to write the moves into
+     */
+    static void addMoves(int from, long targets, boolean pawn, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (pawn && (to < 8 || to >= 56)) {
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    moves.add(PackedMove.pack(from, to, promotion));
+                }
+            } else {
+                moves.add(PackedMove.pack(from, to, null));
+            }
+        }
+    }
+
+    /**
+     * Adds every move for every piece of one team to moves
+     *
+     * @param board the board to generate on
+     * @param color the team to generate moves for
+     * @param moves buffer to write the moves into
+     */
+    public static void generate(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        long teamPieces = board.occupancy(color);
+        while (teamPieces != 0) {
+            int from = Long.numberOfTrailingZeros(teamPieces);
+            teamPieces &= teamPieces - 1;
+            generate(board, from, moves);
+        }
+    }
+
+    /**
+     * finds every square a piece on from can move to, ignoring whether the move leaves its king in check
+     *
+     * @return the set of reachable squares
+     */
+    static long targets(ChessBoard board, int from, ChessPiece piece) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long own = board.occupancy(color);
+        long occupied = board.occupied();
+
+        return switch (piece.getPieceType()) {
+            case PAWN -> pawnTargets(board, from, color, occupied);
+            case KNIGHT -> Bitboards.knightAttacks(from) & ~own;
+            case BISHOP -> Bitboards.bishopAttacks(from, occupied) & ~own;
+            case ROOK -> Bitboards.rookAttacks(from, occupied) & ~own;
+            case QUEEN -> Bitboards.queenAttacks(from, occupied) & ~own;
+            case KING -> Bitboards.kingAttacks(from) & ~own;
+        };
+    }
+
+    private static long pawnTargets(ChessBoard board, int from, ChessGame.TeamColor color, long occupied) {
+        long empty = ~occupied;
+        long start = Bitboards.bit(from);
+        long targets;
+
+        //one space forward, then a second from the initial row if the first was open
+        if (color == ChessGame.TeamColor.WHITE) {
+            long single = (start << 8) & empty;
+            targets = single | ((single & (Bitboards.RANK_1 << 16)) << 8) & empty;
+        } else {
+            long single = (start >>> 8) & empty;
+            targets = single | ((single & (Bitboards.RANK_1 << 40)) >>> 8) & empty;
+        }
+
+        //add captures
+        return targets | (Bitboards.pawnAttacks(color, from) & board.occupancy(opponent(color)));
+    }
+
+    static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,114 @@
+package chess;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable buffer of packed moves (see {@link PackedMove}) that can be cleared
+ * and reused between move generation calls without allocating.
+ */
+public class MoveList {
+    private int[] moves;
+    private int size = 0;
+
+    public MoveList() {
+        this(64);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the buffer into a read-only set that only builds ChessMove
+     * objects when they are asked for, so the buffer can be reused afterwards.
+     * Generated moves are never repeated, so the buffer's moves can back a set as they are.
+     *
+     * @return the moves currently in the buffer
+     */
+    public Collection<ChessMove> toCollection() {
+        return new PackedMoves(Arrays.copyOf(moves, size));
+    }
+
+    private static class PackedMoves extends AbstractSet<ChessMove> {
+        private final int[] moves;
+
+        PackedMoves(int[] moves) {
+            this.moves = moves;
+        }
+
+        @Override
+        public Iterator<ChessMove> iterator() {
+            return new Iterator<>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < moves.length;
+                }
+
+                @Override
+                public ChessMove next() {
+                    if (next == moves.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return PackedMove.toChessMove(moves[next++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return moves.length;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof ChessMove move)) {
+                return false;
+            }
+            int packed = PackedMove.pack(move);
+            for (int test : moves) {
+                if (test == packed) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
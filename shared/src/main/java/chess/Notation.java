@@ -0,0 +1,278 @@
+package chess;
+
+/**
+ * Reads and writes packed moves in UCI notation ({@code e2e4}, {@code e7e8q}) and standard algebraic
+ * notation ({@code Nbd7}, {@code exd8=Q+}, {@code O-O}).
+ * <p>
+ * Everything works on character ranges and packed moves. A SAN move is matched by generating legal moves
+ * only for the pieces that could have made it, into a buffer the caller reuses, so reading and writing
+ * notation allocates nothing.
+ */
+final class Notation {
+    //returned when no legal move matches a SAN move
+    static final int NO_MOVE = -1;
+    //returned when more than one legal move matches a SAN move
+    static final int AMBIGUOUS = -2;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final long[] FILES = new long[8];
+    private static final long[] RANKS = new long[8];
+
+    static {
+        for (int i = 0; i < 8; i++) {
+            FILES[i] = 0x0101010101010101L << i;
+            RANKS[i] = 0xFFL << (i * 8);
+        }
+    }
+
+    private Notation() {
+    }
+
+    /**
+     * @return the packed move written in UCI between start and end, or {@link #NO_MOVE} if it is not UCI
+     */
+    static int parseUci(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length != 4 && length != 5) {
+            return NO_MOVE;
+        }
+        int from = square(text, start);
+        int to = square(text, start + 2);
+        if (from < 0 || to < 0) {
+            return NO_MOVE;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (length == 5) {
+            promotion = promotion(Character.toUpperCase(text.charAt(start + 4)));
+            if (promotion == null) {
+                return NO_MOVE;
+            }
+        }
+        return PackedMove.pack(from, to, promotion);
+    }
+
+    static void appendUci(StringBuilder uci, int move) {
+        appendSquare(uci, PackedMove.from(move));
+        appendSquare(uci, PackedMove.to(move));
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if (promotion != null) {
+            uci.append(Character.toLowerCase(ChessPiece.LETTERS.charAt(promotion.ordinal())));
+        }
+    }
+
+    /**
+     * Finds the legal move a SAN move names. Check, checkmate and annotation marks at the end are ignored,
+     * and castling may be written with zeros.
+     *
+     * @param generator the turn's move generator, already prepared on the board
+     * @param buffer    reused to hold candidate moves
+     * @return the packed move, {@link #NO_MOVE} if no legal move matches, or {@link #AMBIGUOUS} if more than one does
+     */
+    static int parseSan(CharSequence text, int start, int end, ChessBoard board, ChessGame.TeamColor turn,
+                        LegalMoveGenerator generator, MoveList buffer) {
+        while (end > start && "+#!?".indexOf(text.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end - start < 2) {
+            return NO_MOVE;
+        }
+
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        long candidates;
+        int castle = castleLength(text, start, end);
+        int to;
+        ChessPiece.PieceType promotion = null;
+        if (castle > 0) {
+            int king = board.kingSquare(turn);
+            if (king < 0) {
+                return NO_MOVE;
+            }
+            type = ChessPiece.PieceType.KING;
+            candidates = Bitboards.bit(king);
+            to = castle == 3 ? king + 2 : king - 2;
+        } else {
+            int at = start;
+            int letter = ChessPiece.LETTERS.indexOf(text.charAt(at));
+            if (letter >= 0) {
+                type = TYPES[letter];
+                at++;
+            }
+            if (type == ChessPiece.PieceType.PAWN) {
+                promotion = promotion(text.charAt(end - 1));
+                if (promotion != null) {
+                    end--;
+                    if (end > at && text.charAt(end - 1) == '=') {
+                        end--;
+                    }
+                }
+            }
+            if (end - at < 2) {
+                return NO_MOVE;
+            }
+            to = square(text, end - 2);
+            if (to < 0) {
+                return NO_MOVE;
+            }
+
+            candidates = board.bitboard(turn, type);
+            for (int i = at; i < end - 2; i++) {
+                char c = text.charAt(i);
+                if (c >= 'a' && c <= 'h') {
+                    candidates &= FILES[c - 'a'];
+                } else if (c >= '1' && c <= '8') {
+                    candidates &= RANKS[c - '1'];
+                } else if (c != 'x' && c != ':' && c != '-') {
+                    return NO_MOVE;
+                }
+            }
+        }
+
+        int found = NO_MOVE;
+        while (candidates != 0) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            buffer.clear();
+            generator.generate(from, buffer);
+            for (int i = 0; i < buffer.size(); i++) {
+                int move = buffer.get(i);
+                if (PackedMove.to(move) != to || PackedMove.promotion(move) != promotion) {
+                    continue;
+                }
+                if (found != NO_MOVE) {
+                    return AMBIGUOUS;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Writes a legal move in SAN, ending it with + or # if it gives check or checkmate
+     *
+     * @param generator the turn's move generator, already prepared on the board
+     * @param replies   a second generator used on the position after the move to see if it is check or mate.
+     *                  It must not cache anything between positions, since the board is changed and put back.
+     * @param buffer    reused to hold candidate moves
+     */
+    static void appendSan(StringBuilder san, int move, ChessBoard board, ChessGame.TeamColor turn,
+                          LegalMoveGenerator generator, LegalMoveGenerator replies, MoveList buffer) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece.PieceType type = board.at(from).getPieceType();
+
+        if (type == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else if (type == ChessPiece.PieceType.PAWN) {
+            if (((from ^ to) & 7) != 0) {
+                san.append(file(from)).append('x');
+            }
+            appendSquare(san, to);
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            if (promotion != null) {
+                san.append('=').append(ChessPiece.LETTERS.charAt(promotion.ordinal()));
+            }
+        } else {
+            san.append(ChessPiece.LETTERS.charAt(type.ordinal()));
+            appendDisambiguation(san, from, to, board.bitboard(turn, type), generator, buffer);
+            if (board.at(to) != null) {
+                san.append('x');
+            }
+            appendSquare(san, to);
+        }
+
+        board.makeMove(move);
+        replies.prepare(board, MoveGenerator.opponent(turn));
+        if (replies.inCheck()) {
+            san.append(replies.hasLegalMove() ? '+' : '#');
+        }
+        board.unmakeMove();
+    }
+
+    /**
+     * Adds the start file, rank or both when another piece of the same type can also move to the square
+     */
+    private static void appendDisambiguation(StringBuilder san, int from, int to, long sameType,
+                                             LegalMoveGenerator generator, MoveList buffer) {
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (long others = sameType & ~Bitboards.bit(from); others != 0; others &= others - 1) {
+            int other = Long.numberOfTrailingZeros(others);
+            buffer.clear();
+            generator.generate(other, buffer);
+            for (int i = 0; i < buffer.size(); i++) {
+                if (PackedMove.to(buffer.get(i)) == to) {
+                    ambiguous = true;
+                    sameFile |= (other & 7) == (from & 7);
+                    sameRank |= (other >>> 3) == (from >>> 3);
+                    break;
+                }
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append(file(from));
+        } else if (!sameRank) {
+            san.append(rank(from));
+        } else {
+            appendSquare(san, from);
+        }
+    }
+
+    /**
+     * @return 3 for O-O, 5 for O-O-O (either written with zeros), otherwise 0
+     */
+    private static int castleLength(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length != 3 && length != 5) {
+            return 0;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(start + i);
+            boolean expected = i % 2 == 0 ? c == 'O' || c == '0' : c == '-';
+            if (!expected) {
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return the piece type a pawn promotes to for an uppercase letter, or null if it is not one
+     */
+    private static ChessPiece.PieceType promotion(char letter) {
+        return switch (letter) {
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the square index named at an index, such as e4, or -1 if there is no square name there
+     */
+    private static int square(CharSequence text, int at) {
+        int col = text.charAt(at) - 'a';
+        int row = text.charAt(at + 1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            return -1;
+        }
+        return row * 8 + col;
+    }
+
+    private static void appendSquare(StringBuilder text, int square) {
+        text.append(file(square)).append(rank(square));
+    }
+
+    private static char file(int square) {
+        return (char) ('a' + (square & 7));
+    }
+
+    private static char rank(int square) {
+        return (char) ('1' + (square >>> 3));
+    }
+}
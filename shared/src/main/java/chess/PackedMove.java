@@ -0,0 +1,56 @@
+package chess;
+
+/**
+ * Encodes a chess move as a single int so move lists can be kept in primitive arrays.
+ * <p>
+ * Bits 0-5 hold the starting square index, bits 6-11 hold the ending square index
+ * and bits 12-14 hold the promotion piece (0 for none, otherwise the piece type's
+ * ordinal plus one). Square indexes follow {@link Bitboards}.
+ */
+public final class PackedMove {
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int pack(int from, int to, ChessPiece.PieceType promotion) {
+        int promote = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << TO_SHIFT) | (promote << PROMOTION_SHIFT);
+    }
+
+    /**
+     * @return the packed form of move, or -1 if either end of the move is off the board
+     */
+    public static int pack(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        if (start == null || end == null || !start.onBoard() || !end.onBoard()) {
+            return -1;
+        }
+        return pack(start.index(), end.index(), move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the piece type to promote to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promote = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return promote == 0 ? null : TYPES[promote - 1];
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotion(move));
+    }
+}
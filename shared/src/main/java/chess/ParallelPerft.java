@@ -0,0 +1,174 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the same leaf nodes as {@link Perft}, but spreads the work over a {@link ForkJoinPool}.
+ * <p>
+ * The moves in the first few plies (the split depth) are each handed to their own task. Every task
+ * makes its move on its own copy of the board, so workers never share a board or undo stack, and
+ * counts the rest of its subtree with a sequential {@link Perft}.
+ */
+public class ParallelPerft {
+    private final ChessBoard board;
+    private final ChessGame.TeamColor turn;
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final Map<String, LongAdder> threadNodes = new ConcurrentHashMap<>();
+
+    /**
+     * Splits on the root moves and runs in the common pool
+     */
+    public ParallelPerft(ChessGame game) {
+        this(game, ForkJoinPool.commonPool(), 1);
+    }
+
+    /**
+     * @param pool       the pool to run the tasks in
+     * @param splitDepth how many plies of moves get their own task before counting goes sequential
+     */
+    public ParallelPerft(ChessGame game, ForkJoinPool pool, int splitDepth) {
+        this.board = game.getBoard().copy();
+        this.turn = game.getTeamTurn();
+        this.pool = pool;
+        this.splitDepth = Math.max(1, splitDepth);
+    }
+
+    /**
+     * @param depth how many plies to look ahead
+     * @return the number of positions reached at exactly that depth
+     */
+    public long perft(int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return pool.invoke(new CountTask(board.copy(), turn, depth, splitDepth));
+    }
+
+    /**
+     * Counts the leaf nodes under each legal move from the starting position separately, one task per root move
+     *
+     * @param depth how many plies to look ahead, including the root move
+     * @return the node count under each root move, in generation order
+     */
+    public Map<ChessMove, Long> divide(int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+
+        MoveList moves = new MoveList();
+        new LegalMoveGenerator().prepare(board, turn).generate(moves);
+        List<CountTask> tasks = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            tasks.add(after(board, moves.get(i), turn, depth - 1, splitDepth - 1));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        for (int i = 0; i < moves.size(); i++) {
+            counts.put(PackedMove.toChessMove(moves.get(i)), tasks.get(i).join());
+        }
+        return counts;
+    }
+
+    /**
+     * @return how many leaf nodes each worker thread has counted since this counter was created
+     */
+    public Map<String, Long> getThreadNodes() {
+        Map<String, Long> nodes = new TreeMap<>();
+        threadNodes.forEach((thread, count) -> nodes.put(thread, count.sum()));
+        return nodes;
+    }
+
+    /**
+     * Runs perft from the starting position sequentially and then in parallel, and prints both speeds,
+     * the speedup and how many nodes each worker counted
+     *
+     * @param args the depth to count to, followed by the split depth
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int splitDepth = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        ChessGame game = new ChessGame();
+
+        long start = System.nanoTime();
+        long sequentialNodes = new Perft(game).perft(depth);
+        long sequential = Math.max(1, System.nanoTime() - start);
+
+        ParallelPerft perft = new ParallelPerft(game, ForkJoinPool.commonPool(), splitDepth);
+        start = System.nanoTime();
+        long parallelNodes = perft.perft(depth);
+        long parallel = Math.max(1, System.nanoTime() - start);
+
+        System.out.println("Nodes: " + parallelNodes + (parallelNodes == sequentialNodes ? "" : " (sequential counted "
+                + sequentialNodes + ")"));
+        System.out.printf("Sequential: %.1f ms, %.0f nodes/second%n", sequential / 1e6, sequentialNodes * 1e9 / sequential);
+        System.out.printf("Parallel: %.1f ms, %.0f nodes/second on %d threads%n", parallel / 1e6,
+                parallelNodes * 1e9 / parallel, ForkJoinPool.commonPool().getParallelism());
+        System.out.printf("Speedup: %.2fx%n", (double) sequential / parallel);
+        perft.getThreadNodes().forEach((thread, nodes) -> System.out.println(thread + ": " + nodes));
+    }
+
+    /**
+     * @return a task counting the position after move, on its own copy of board
+     */
+    private CountTask after(ChessBoard board, int move, ChessGame.TeamColor mover, int depth, int split) {
+        ChessBoard next = board.copy();
+        next.applyMove(move);
+        return new CountTask(next, MoveGenerator.opponent(mover), depth, split);
+    }
+
+    /**
+     * Counts one subtree on a board the task owns outright
+     */
+    private class CountTask extends RecursiveTask<Long> {
+        private final ChessBoard board;
+        private final ChessGame.TeamColor color;
+        private final int depth;
+        private final int split;
+
+        CountTask(ChessBoard board, ChessGame.TeamColor color, int depth, int split) {
+            this.board = board;
+            this.color = color;
+            this.depth = depth;
+            this.split = split;
+        }
+
+        @Override
+        protected Long compute() {
+            long nodes;
+            if (depth <= 1 || split <= 0) {
+                nodes = new Perft(board, color).perft(depth);
+                threadNodes.computeIfAbsent(Thread.currentThread().getName(), thread -> new LongAdder()).add(nodes);
+                return nodes;
+            }
+
+            MoveList moves = new MoveList();
+            new LegalMoveGenerator().prepare(board, color).generate(moves);
+            List<CountTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                children.add(after(board, moves.get(i), color, depth - 1, split - 1));
+            }
+            invokeAll(children);
+
+            nodes = 0;
+            for (CountTask child : children) {
+                nodes += child.join();
+            }
+            return nodes;
+        }
+    }
+}
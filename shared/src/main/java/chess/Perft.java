@@ -0,0 +1,126 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree from a position to a fixed depth ("perft").
+ * Comparing the counts against published numbers checks the rules engine, and timing them
+ * gives a throughput number for move generation.
+ * <p>
+ * The position is copied when the counter is created, so counting never changes the game it came from.
+ */
+public class Perft {
+    private final ChessBoard board;
+    private final ChessGame.TeamColor turn;
+    private final LegalMoveGenerator generator = new LegalMoveGenerator();
+    //one move buffer per remaining depth so recursion never allocates
+    private MoveList[] buffers = new MoveList[0];
+
+    public Perft(ChessGame game) {
+        this(game.getBoard().copy(), game.getTeamTurn());
+    }
+
+    /**
+     * Counts straight on the given board, which the caller must not touch while counting
+     */
+    Perft(ChessBoard board, ChessGame.TeamColor turn) {
+        this.board = board;
+        this.turn = turn;
+    }
+
+    /**
+     * @param depth how many plies to look ahead
+     * @return the number of positions reached at exactly that depth
+     */
+    public long perft(int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        ensureBuffers(depth);
+        return count(turn, depth);
+    }
+
+    /**
+     * Counts the leaf nodes under each legal move from the starting position separately,
+     * which narrows down where a wrong total comes from
+     *
+     * @param depth how many plies to look ahead, including the root move
+     * @return the node count under each root move, in generation order
+     */
+    public Map<ChessMove, Long> divide(int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+        ensureBuffers(depth);
+
+        MoveList moves = new MoveList();
+        generator.prepare(board, turn).generate(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            long nodes = depth == 1 ? 1 : count(MoveGenerator.opponent(turn), depth - 1);
+            board.unmakeMove();
+            counts.put(PackedMove.toChessMove(moves.get(i)), nodes);
+        }
+        return counts;
+    }
+
+    private long count(ChessGame.TeamColor color, int depth) {
+        MoveList moves = buffers[depth];
+        moves.clear();
+        generator.prepare(board, color).generate(moves);
+
+        //every legal move at the last ply is a leaf, so there is no need to make them
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        ChessGame.TeamColor next = MoveGenerator.opponent(color);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(next, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private void ensureBuffers(int depth) {
+        if (buffers.length > depth) {
+            return;
+        }
+        MoveList[] grown = new MoveList[depth + 1];
+        for (int i = 0; i < grown.length; i++) {
+            grown[i] = i < buffers.length ? buffers[i] : new MoveList();
+        }
+        buffers = grown;
+    }
+
+    /**
+     * Runs perft from the starting position and prints the node count and speed
+     *
+     * @param args the depth to count to, followed by "divide" to print a count per root move
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        boolean divide = args.length > 1 && args[1].equals("divide");
+        Perft perft = new Perft(new ChessGame());
+
+        long start = System.nanoTime();
+        long nodes = 0;
+        if (divide) {
+            for (var entry : perft.divide(depth).entrySet()) {
+                System.out.println(entry.getKey().toUci() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = perft.perft(depth);
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        System.out.println("Nodes: " + nodes);
+        System.out.printf("Time: %.1f ms%n", elapsed / 1e6);
+        System.out.printf("Nodes/second: %.0f%n", nodes * 1e9 / elapsed);
+    }
+}
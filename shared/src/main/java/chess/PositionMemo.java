@@ -0,0 +1,69 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Remembers the answers a {@link ChessGame} has already worked out for its current position, so asking
+ * again before the position changes costs an array lookup.
+ * <p>
+ * The memo belongs to one position version and board key. As soon as either one differs, everything
+ * remembered is thrown away, which also catches changes made straight to the board through getBoard().
+ */
+final class PositionMemo {
+    static final int CHECK = 0;
+    static final int CHECKMATE = 1;
+    static final int STALEMATE = 2;
+    static final byte UNKNOWN = 0;
+    static final byte NO = 1;
+    static final byte YES = 2;
+
+    private long version = -1;
+    private long hash = 0;
+    //one answer per status kind and team, indexed kind * 2 + team
+    private final byte[] statuses = new byte[6];
+    private final Collection<?>[] validMoves = new Collection<?>[64];
+
+    /**
+     * Throws away everything remembered if the position has changed since it was remembered
+     *
+     * @return this memo
+     */
+    PositionMemo sync(long version, long hash) {
+        if (this.version != version || this.hash != hash) {
+            this.version = version;
+            this.hash = hash;
+            Arrays.fill(statuses, UNKNOWN);
+            Arrays.fill(validMoves, null);
+        }
+        return this;
+    }
+
+    /**
+     * @return UNKNOWN if the answer has not been worked out yet, otherwise YES or NO
+     */
+    byte status(int kind, ChessGame.TeamColor color) {
+        return statuses[kind * 2 + color.ordinal()];
+    }
+
+    /**
+     * @return the answer that was stored
+     */
+    boolean status(int kind, ChessGame.TeamColor color, boolean answer) {
+        statuses[kind * 2 + color.ordinal()] = answer ? YES : NO;
+        return answer;
+    }
+
+    @SuppressWarnings("unchecked")
+    Collection<ChessMove> validMoves(int square) {
+        return (Collection<ChessMove>) validMoves[square];
+    }
+
+    /**
+     * @return the moves that were stored
+     */
+    Collection<ChessMove> validMoves(int square, Collection<ChessMove> moves) {
+        validMoves[square] = moves;
+        return moves;
+    }
+}
@@ -0,0 +1,79 @@
+package chess;
+
+/**
+ * Remembers each square's pseudo-legal move targets between moves of one game.
+ * <p>
+ * After a move only the squares whose targets the move could have changed are forgotten: every square
+ * the move emptied or filled, every piece that sees one of those squares along a line or by a knight
+ * jump, and pawns whose pushes run through them. Every other piece keeps the targets worked out on an earlier ply.
+ * <p>
+ * The cache follows the board through its Zobrist key, so a board changed any other way is noticed and
+ * the whole cache is forgotten.
+ */
+final class SquareMoveCache {
+    private final long[] targets = new long[64];
+    //squares whose targets are currently remembered
+    private long known;
+    private long hash;
+
+    /**
+     * @return the pseudo-legal targets of the piece on from, worked out only if they are not remembered
+     */
+    long targets(ChessBoard board, int from, ChessPiece piece) {
+        sync(board);
+        long bit = Bitboards.bit(from);
+        if ((known & bit) == 0) {
+            targets[from] = MoveGenerator.targets(board, from, piece);
+            known |= bit;
+        }
+        return targets[from];
+    }
+
+    /**
+     * Forgets the squares a move just made on board could have changed the targets of
+     *
+     * @param before         the board's key before the move was made
+     * @param occupiedBefore the occupied squares before the move was made
+     * @param move           the packed move that was made
+     */
+    void moved(ChessBoard board, long before, long occupiedBefore, int move) {
+        if (hash != before) {
+            forget(board);
+            return;
+        }
+
+        //castling moves a rook and en passant empties a third square, both of which show in the occupancy
+        long changed = Bitboards.bit(PackedMove.from(move)) | Bitboards.bit(PackedMove.to(move))
+                | (occupiedBefore ^ board.occupied());
+        long occupied = board.occupied();
+        long stale = changed;
+        long knights = board.bitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT)
+                | board.bitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        long pawns = board.bitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN)
+                | board.bitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        while (changed != 0) {
+            int square = Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            //anything on a line to the square, which also covers neighbouring kings and capturing pawns
+            stale |= Bitboards.queenAttacks(square, occupied) & occupied;
+            stale |= Bitboards.knightAttacks(square) & knights;
+            //pawns one or two rows away on the same column, whose pushes the square can block
+            long column = Bitboards.bit(square);
+            stale |= (column << 8 | column << 16 | column >>> 8 | column >>> 16) & pawns;
+        }
+
+        known &= ~stale;
+        hash = board.hash();
+    }
+
+    private void sync(ChessBoard board) {
+        if (hash != board.hash()) {
+            forget(board);
+        }
+    }
+
+    private void forget(ChessBoard board) {
+        known = 0;
+        hash = board.hash();
+    }
+}
@@ -0,0 +1,77 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for every
+ * piece on its square, plus the side-to-move key when black is to move, so a key can
+ * be updated one piece at a time as pieces are placed and removed. Castling rights and
+ * the en passant column have keys of their own for keys that tell positions apart by them.
+ * <p>
+ * The keys come from a fixed seed so they are the same in every JVM, which keeps
+ * hashes stable between the server and client and across restarts.
+ */
+final class Zobrist {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+
+    static {
+        long state = SEED;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < squares.length; square++) {
+                state += SEED;
+                squares[square] = mix(state);
+            }
+        }
+        state += SEED;
+        BLACK_TO_MOVE = mix(state);
+        //no rights at all keeps a zero key, so positions without castling hash the same as before rights existed
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            state += SEED;
+            CASTLING[rights] = mix(state);
+        }
+        for (int col = 0; col < EN_PASSANT.length; col++) {
+            state += SEED;
+            EN_PASSANT[col] = mix(state);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return the key for a piece standing on a square index
+     */
+    static long piece(ChessPiece piece, int square) {
+        return PIECE_SQUARE[piece.index()][square];
+    }
+
+    /**
+     * @return the key for whose turn it is
+     */
+    static long turn(ChessGame.TeamColor turn) {
+        return turn == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0;
+    }
+
+    /**
+     * @return the key for a set of castling rights, as kept by {@link ChessBoard}
+     */
+    static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @return the key for an en passant target square index, or 0 if there is none
+     */
+    static long enPassant(int square) {
+        return square < 0 ? 0 : EN_PASSANT[square & 7];
+    }
+
+    //SplitMix64 finalizer, spreads consecutive seeds into well-mixed keys
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,42 @@
+package pgn;
+
+import java.util.Map;
+
+/**
+ * One game read from or written to a PGN file
+ *
+ * @param tags   the tag pairs in file order, such as Event, White and Result
+ * @param moves  the moves in SAN separated by single spaces, with move numbers, comments, variations and
+ *               annotations left out, such as {@code "e4 e5 Nf3 Nc6"}
+ * @param result the game termination marker: 1-0, 0-1, 1/2-1/2 or * for a game still going or unknown
+ */
+public record PgnGame(Map<String, String> tags, String moves, String result) {
+    public static final String UNKNOWN_RESULT = "*";
+
+    /**
+     * @return the value of a tag, or null if the game does not have it
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return true if a token is one of the four game termination markers
+     */
+    static boolean isResult(CharSequence token) {
+        return contentEquals(token, "1-0") || contentEquals(token, "0-1") || contentEquals(token, "1/2-1/2")
+                || contentEquals(token, UNKNOWN_RESULT);
+    }
+
+    private static boolean contentEquals(CharSequence token, String text) {
+        if (token.length() != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (token.charAt(i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
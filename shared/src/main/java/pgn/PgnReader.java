@@ -0,0 +1,210 @@
+package pgn;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads games one at a time from a PGN stream, so a database of any size can be read without holding more
+ * than the current game in memory.
+ * <p>
+ * Comments, variations, numeric annotation glyphs and move numbers are skipped as the movetext is read, and
+ * the moves are gathered into one reused buffer. A game ends at its result marker, or at the next tag
+ * section if the marker is missing.
+ */
+public class PgnReader implements Closeable {
+    private static final int NONE = -2;
+
+    private final BufferedReader in;
+    private final StringBuilder moves = new StringBuilder(1024);
+    private final StringBuilder token = new StringBuilder(16);
+    private int pushedBack = NONE;
+    private boolean lineStart = true;
+
+    public PgnReader(Reader in) {
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+    }
+
+    /**
+     * @return the next game in the stream, or null if there are no more
+     * @throws IOException            if the stream cannot be read
+     * @throws IllegalStateException if a tag pair is malformed
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        moves.setLength(0);
+
+        int c = skipWhitespace();
+        while (c == '[') {
+            readTag(tags);
+            c = skipWhitespace();
+        }
+        if (c < 0 && tags.isEmpty()) {
+            return null;
+        }
+        pushBack(c);
+        String result = readMoves();
+        return new PgnGame(tags, moves.toString(), result);
+    }
+
+    /**
+     * Reads a tag pair such as [White "Fischer, Robert J."] after its opening bracket
+     */
+    private void readTag(Map<String, String> tags) throws IOException {
+        token.setLength(0);
+        int c = skipWhitespace();
+        while (c >= 0 && !Character.isWhitespace(c) && c != '"' && c != ']') {
+            token.append((char) c);
+            c = read();
+        }
+        String name = token.toString();
+
+        while (c >= 0 && Character.isWhitespace(c)) {
+            c = read();
+        }
+        if (c != '"' || name.isEmpty()) {
+            throw new IllegalStateException("Malformed tag " + name);
+        }
+        token.setLength(0);
+        for (c = read(); c >= 0 && c != '"'; c = read()) {
+            if (c == '\\') {
+                c = read();
+            }
+            token.append((char) c);
+        }
+        c = skipWhitespace();
+        if (c != ']') {
+            throw new IllegalStateException("Malformed tag " + name);
+        }
+        tags.put(name, token.toString());
+    }
+
+    /**
+     * Gathers the moves of the current game into the moves buffer
+     *
+     * @return the game's result marker
+     */
+    private String readMoves() throws IOException {
+        int depth = 0;
+        while (true) {
+            boolean atLineStart = lineStart;
+            int c = read();
+            if (c < 0) {
+                return PgnGame.UNKNOWN_RESULT;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            switch (c) {
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                case '(' -> depth++;
+                case ')' -> depth = Math.max(0, depth - 1);
+                case '$' -> readToken(read());
+                case '%' -> {
+                    if (atLineStart) {
+                        skipPast('\n');
+                    }
+                }
+                case '[' -> {
+                    //a tag section means the next game has started without this one giving its result
+                    if (depth == 0) {
+                        pushBack(c);
+                        return PgnGame.UNKNOWN_RESULT;
+                    }
+                }
+                default -> {
+                    readToken(c);
+                    if (depth > 0) {
+                        continue;
+                    }
+                    if (PgnGame.isResult(token)) {
+                        return token.toString();
+                    }
+                    addMove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a run of symbol characters, starting with one already read, into the token buffer
+     */
+    private void readToken(int first) throws IOException {
+        token.setLength(0);
+        int c = first;
+        while (c >= 0 && !Character.isWhitespace(c) && "{}();[]$".indexOf(c) < 0) {
+            token.append((char) c);
+            c = read();
+        }
+        pushBack(c);
+    }
+
+    /**
+     * Adds the token to the moves, dropping any move number in front of it such as "12." or "12..." and
+     * any annotation after it such as "!?"
+     */
+    private void addMove() {
+        int start = 0;
+        while (start < token.length() && Character.isDigit(token.charAt(start))) {
+            start++;
+        }
+        if (start < token.length() && token.charAt(start) == '.') {
+            while (start < token.length() && token.charAt(start) == '.') {
+                start++;
+            }
+        } else {
+            start = 0;
+        }
+        int end = token.length();
+        while (end > start && (token.charAt(end - 1) == '!' || token.charAt(end - 1) == '?')) {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+        if (!moves.isEmpty()) {
+            moves.append(' ');
+        }
+        moves.append(token, start, end);
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c = read();
+        while (c >= 0 && c != end) {
+            c = read();
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (c >= 0 && Character.isWhitespace(c)) {
+            c = read();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != NONE) {
+            c = pushedBack;
+            pushedBack = NONE;
+        } else {
+            c = in.read();
+        }
+        lineStart = c == '\n';
+        return c;
+    }
+
+    private void pushBack(int c) {
+        pushedBack = c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,192 @@
+package pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Checks that every game in a PGN stream can be replayed move by move through {@link ChessGame#makeMove}.
+ * <p>
+ * The calling thread reads games and hands them to a fixed set of workers through a bounded queue, so
+ * memory stays flat however large the file is and reading only waits when every worker is busy. Each
+ * worker replays its games on one {@link ChessGame} that it resets from FEN for every game.
+ */
+public class PgnValidator {
+    //games waiting per worker before the reader has to wait for them to catch up
+    private static final int QUEUE_PER_WORKER = 64;
+    //handed to each worker once the stream is finished
+    private static final Job END = new Job(0, null);
+
+    private final int workers;
+
+    /**
+     * A game that could not be replayed
+     *
+     * @param game   the game's place in the stream, starting at 1
+     * @param ply    the half move that failed, starting at 1, or 0 if the game failed before its first move
+     * @param move   the move as written, or null if the game failed before its first move
+     * @param reason why the game is invalid
+     */
+    public record Invalid(long game, int ply, String move, String reason) {
+    }
+
+    /**
+     * @param games   how many games were read
+     * @param invalid the games that could not be replayed, in stream order
+     */
+    public record Report(long games, List<Invalid> invalid) {
+        /**
+         * @return how many games replayed without a problem
+         */
+        public long valid() {
+            return games - invalid.size();
+        }
+    }
+
+    private record Job(long index, PgnGame game) {
+    }
+
+    /**
+     * @param workers how many threads replay games at once
+     */
+    public PgnValidator(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Reads every game left in the reader and replays them across the workers
+     *
+     * @return the number of games read and the ones that were invalid
+     * @throws IOException if the stream cannot be read
+     */
+    public Report validate(PgnReader reader) throws IOException, InterruptedException {
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(workers * QUEUE_PER_WORKER);
+        ConcurrentLinkedQueue<Invalid> invalid = new ConcurrentLinkedQueue<>();
+        long games = 0;
+
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(() -> work(queue, invalid), "pgn-validator-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        try {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                queue.put(new Job(++games, game));
+            }
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                queue.put(END);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        List<Invalid> sorted = new ArrayList<>(invalid);
+        sorted.sort(Comparator.comparingLong(Invalid::game));
+        return new Report(games, sorted);
+    }
+
+    private static void work(BlockingQueue<Job> queue, ConcurrentLinkedQueue<Invalid> invalid) {
+        ChessGame game = new ChessGame();
+        try {
+            for (Job job = queue.take(); job != END; job = queue.take()) {
+                Invalid problem;
+                try {
+                    problem = replay(job.index(), job.game(), game);
+                } catch (RuntimeException ex) {
+                    //one broken game must not stop the worker, or the reader would wait on it forever
+                    problem = new Invalid(job.index(), 0, null, "Could not be replayed: " + ex);
+                }
+                if (problem != null) {
+                    invalid.add(problem);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replays one game on a reused board
+     *
+     * @return what went wrong, or null if every move was legal
+     */
+    static Invalid replay(long index, PgnGame pgn, ChessGame game) {
+        String fen = pgn.tag("FEN");
+        try {
+            Fen.parseInto(fen == null ? Fen.START : fen, game);
+        } catch (IllegalArgumentException ex) {
+            return new Invalid(index, 0, null, "Invalid FEN tag");
+        }
+
+        String moves = pgn.moves();
+        int ply = 0;
+        int at = 0;
+        while (at < moves.length()) {
+            int end = moves.indexOf(' ', at);
+            if (end < 0) {
+                end = moves.length();
+            }
+            ply++;
+            try {
+                game.makeMove(ChessMove.parseSan(moves, at, end, game));
+            } catch (IllegalArgumentException ex) {
+                return new Invalid(index, ply, moves.substring(at, end), ex.getMessage());
+            } catch (InvalidMoveException ex) {
+                return new Invalid(index, ply, moves.substring(at, end), "Not a legal move");
+            }
+            at = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Validates a PGN file and prints every invalid game along with a summary
+     *
+     * @param args the file to read, followed by how many worker threads to use (one per core if left out)
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Usage: PgnValidator <file.pgn> [workers]");
+            return;
+        }
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        Report report;
+        try (Reader file = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8);
+             PgnReader reader = new PgnReader(file)) {
+            report = new PgnValidator(workers).validate(reader);
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        for (Invalid invalid : report.invalid()) {
+            System.out.printf("Game %d, ply %d (%s): %s%n", invalid.game(), invalid.ply(), invalid.move(),
+                    invalid.reason());
+        }
+        System.out.printf("Games: %d, valid: %d, invalid: %d%n", report.games(), report.valid(),
+                report.invalid().size());
+        System.out.printf("Time: %.1f ms%n", elapsed / 1e6);
+        System.out.printf("Games/second: %.0f%n", report.games() * 1e9 / elapsed);
+    }
+}
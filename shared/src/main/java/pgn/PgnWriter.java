@@ -0,0 +1,168 @@
+package pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games as PGN in export format: the seven required tags first, then any others, then movetext
+ * with move numbers, wrapped so no line runs past 80 characters.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    private static final int LINE_WIDTH = 80;
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final String[] ROSTER_DEFAULTS = {"?", "?", "????.??.??", "?", "?", "?", PgnGame.UNKNOWN_RESULT};
+
+    private final Writer out;
+    //the current movetext line, written out whenever the next token would not fit
+    private final StringBuilder line = new StringBuilder(LINE_WIDTH + 16);
+    private final StringBuilder number = new StringBuilder(8);
+
+    public PgnWriter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    /**
+     * Writes a game that was read from PGN, or built from moves already in SAN
+     *
+     * @throws IOException              if the stream cannot be written
+     * @throws IllegalArgumentException if the game's FEN tag is not valid FEN
+     */
+    public void write(PgnGame game) throws IOException {
+        writeTags(game.tags(), game.result());
+
+        String fen = game.tag("FEN");
+        ChessGame start = fen == null ? null : Fen.parse(fen);
+        int moveNumber = start == null ? 1 : start.getFullmoveNumber();
+        boolean white = start == null || start.getTeamTurn() == ChessGame.TeamColor.WHITE;
+        boolean first = true;
+
+        String moves = game.moves();
+        int at = 0;
+        while (at < moves.length()) {
+            int end = moves.indexOf(' ', at);
+            if (end < 0) {
+                end = moves.length();
+            }
+            if (white) {
+                addNumber(moveNumber, false);
+            } else if (first) {
+                addNumber(moveNumber, true);
+            }
+            addToken(moves, at, end);
+            if (!white) {
+                moveNumber++;
+            }
+            white = !white;
+            first = false;
+            at = end + 1;
+        }
+        addToken(game.result(), 0, game.result().length());
+        endMovetext();
+    }
+
+    /**
+     * Writes a game from its tags and a list of moves, replaying the moves from the starting position (or the
+     * position in the FEN tag) to write them in SAN
+     *
+     * @throws IOException              if the stream cannot be written
+     * @throws IllegalArgumentException if a move is not legal where it is played
+     */
+    public void write(Map<String, String> tags, List<ChessMove> moves) throws IOException {
+        String fen = tags.get("FEN");
+        ChessGame game = fen == null ? new ChessGame() : Fen.parse(fen);
+        StringBuilder text = new StringBuilder(moves.size() * 6);
+        for (ChessMove move : moves) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            move.appendSan(text, game);
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException ex) {
+                throw new IllegalArgumentException("Not a legal move: " + move.toUci(), ex);
+            }
+        }
+        String result = tags.getOrDefault("Result", PgnGame.UNKNOWN_RESULT);
+        write(new PgnGame(new LinkedHashMap<>(tags), text.toString(), result));
+    }
+
+    private void writeTags(Map<String, String> tags, String result) throws IOException {
+        for (int i = 0; i < SEVEN_TAG_ROSTER.length; i++) {
+            String name = SEVEN_TAG_ROSTER[i];
+            String value = name.equals("Result") ? result : tags.getOrDefault(name, ROSTER_DEFAULTS[i]);
+            writeTag(name, value);
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isRoster(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c);
+        }
+        out.write("\"]\n");
+    }
+
+    private static boolean isRoster(String name) {
+        for (String roster : SEVEN_TAG_ROSTER) {
+            if (roster.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addNumber(int moveNumber, boolean blackToMove) throws IOException {
+        number.setLength(0);
+        number.append(moveNumber).append(blackToMove ? "..." : ".");
+        addToken(number, 0, number.length());
+    }
+
+    private void addToken(CharSequence text, int start, int end) throws IOException {
+        if (!line.isEmpty() && line.length() + 1 + end - start > LINE_WIDTH) {
+            out.append(line).write('\n');
+            line.setLength(0);
+        }
+        if (!line.isEmpty()) {
+            line.append(' ');
+        }
+        line.append(text, start, end);
+    }
+
+    private void endMovetext() throws IOException {
+        out.append(line).write("\n\n");
+        line.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
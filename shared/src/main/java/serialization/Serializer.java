@@ -0,0 +1,207 @@
+package serialization;
+
+import chess.ChessGame;
+import chess.ChessTypeAdapters;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.AuthData;
+import model.GameData;
+import model.JoinRequest;
+import model.UserData;
+
+import java.io.IOException;
+
+/**
+ * The one {@link Gson} shared by the server and client. Chess types and model records are written by
+ * hand-written streaming adapters, so nothing is serialized by reflection and a board is a single string.
+ * <p>
+ * The model records keep the same field names as before, and null fields are still left out.
+ * Gson instances are thread safe, so the same instance serves every request.
+ */
+public final class Serializer {
+    public static final Gson GSON = ChessTypeAdapters.register(new GsonBuilder())
+            .registerTypeAdapter(AuthData.class, new AuthDataAdapter().nullSafe())
+            .registerTypeAdapter(UserData.class, new UserDataAdapter().nullSafe())
+            .registerTypeAdapter(JoinRequest.class, new JoinRequestAdapter().nullSafe())
+            .registerTypeAdapterFactory(new GameDataAdapterFactory())
+            .create();
+
+    private Serializer() {
+    }
+
+    /**
+     * @return the next string, or null if the value is a JSON null
+     */
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    /**
+     * @return the next number, which may be written as a numeric string, or null
+     * @throws JsonSyntaxException if the value is not a whole number that fits in an int
+     */
+    private static Integer nextInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException ex) {
+            throw new JsonSyntaxException(ex);
+        }
+    }
+
+    private static class AuthDataAdapter extends TypeAdapter<AuthData> {
+        @Override
+        public void write(JsonWriter out, AuthData auth) throws IOException {
+            out.beginObject();
+            out.name("authToken").value(auth.authToken());
+            out.name("username").value(auth.username());
+            out.endObject();
+        }
+
+        @Override
+        public AuthData read(JsonReader in) throws IOException {
+            String authToken = null;
+            String username = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "authToken" -> authToken = nextString(in);
+                    case "username" -> username = nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new AuthData(authToken, username);
+        }
+    }
+
+    private static class UserDataAdapter extends TypeAdapter<UserData> {
+        @Override
+        public void write(JsonWriter out, UserData user) throws IOException {
+            out.beginObject();
+            out.name("username").value(user.username());
+            out.name("password").value(user.password());
+            out.name("email").value(user.email());
+            out.endObject();
+        }
+
+        @Override
+        public UserData read(JsonReader in) throws IOException {
+            String username = null;
+            String password = null;
+            String email = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username" -> username = nextString(in);
+                    case "password" -> password = nextString(in);
+                    case "email" -> email = nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new UserData(username, password, email);
+        }
+    }
+
+    /**
+     * Game data holds a game, so its adapter is made by a factory that can look up the game adapter
+     */
+    private static class GameDataAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != GameData.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new GameDataAdapter(gson.getAdapter(ChessGame.class)).nullSafe();
+        }
+    }
+
+    private static class GameDataAdapter extends TypeAdapter<GameData> {
+        private final TypeAdapter<ChessGame> games;
+
+        GameDataAdapter(TypeAdapter<ChessGame> games) {
+            this.games = games;
+        }
+
+        @Override
+        public void write(JsonWriter out, GameData game) throws IOException {
+            out.beginObject();
+            out.name("gameID").value(game.gameID());
+            out.name("whiteUsername").value(game.whiteUsername());
+            out.name("blackUsername").value(game.blackUsername());
+            out.name("gameName").value(game.gameName());
+            if (game.game() != null) {
+                out.name("game");
+                games.write(out, game.game());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public GameData read(JsonReader in) throws IOException {
+            int gameID = 0;
+            String whiteUsername = null;
+            String blackUsername = null;
+            String gameName = null;
+            ChessGame game = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "gameID" -> {
+                        Integer id = nextInteger(in);
+                        gameID = id == null ? 0 : id;
+                    }
+                    case "whiteUsername" -> whiteUsername = nextString(in);
+                    case "blackUsername" -> blackUsername = nextString(in);
+                    case "gameName" -> gameName = nextString(in);
+                    case "game" -> game = games.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+        }
+    }
+
+    private static class JoinRequestAdapter extends TypeAdapter<JoinRequest> {
+        @Override
+        public void write(JsonWriter out, JoinRequest request) throws IOException {
+            out.beginObject();
+            out.name("playerColor").value(request.playerColor());
+            out.name("gameID").value(request.gameID());
+            out.endObject();
+        }
+
+        @Override
+        public JoinRequest read(JsonReader in) throws IOException {
+            String playerColor = null;
+            Integer gameID = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "playerColor" -> playerColor = nextString(in);
+                    case "gameID" -> gameID = nextInteger(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new JoinRequest(playerColor, gameID);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static chess.EngineTestUtilities.move;
+import static passoff.chess.TestUtilities.loadBoard;
+
+/**
+ * Checks that games come back from the binary encoding exactly as they went in
+ */
+public class ChessGameCodecTests {
+
+    @Test
+    @DisplayName("Starting position")
+    public void startingPosition() {
+        var game = new ChessGame();
+        byte[] encoded = ChessGameCodec.encode(game);
+
+        Assertions.assertEquals(33, encoded.length, "Starting position should take 33 bytes");
+        assertSameGame(game, ChessGameCodec.decode(encoded));
+    }
+
+    @Test
+    @DisplayName("Turn, castling rights, en passant and repetition history")
+    public void gameState() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(8, 2, 6, 3));
+        game.makeMove(move(1, 5, 2, 5));
+        game.makeMove(move(7, 4, 5, 4));
+        game.makeMove(move(4, 5, 5, 5));
+        game.makeMove(move(7, 6, 5, 6));
+
+        var decoded = ChessGameCodec.decode(ChessGameCodec.encode(game));
+        assertSameGame(game, decoded);
+        Assertions.assertTrue(decoded.validMoves(new ChessPosition(5, 5)).contains(move(5, 5, 6, 6)),
+                "En passant capture was lost");
+        Assertions.assertEquals(ChessBoard.BLACK_KINGSIDE | ChessBoard.BLACK_QUEENSIDE,
+                decoded.getBoard().castlingRights(), "Castling rights were not kept");
+    }
+
+    @Test
+    @DisplayName("Repetition history is stored as moves and rebuilt")
+    public void historyAsMoves() throws InvalidMoveException {
+        var game = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        game.makeMove(move(1, 5, 1, 7));
+        game.makeMove(move(8, 5, 8, 4));
+        game.makeMove(move(1, 6, 2, 6));
+        game.makeMove(move(8, 4, 8, 5));
+
+        byte[] encoded = ChessGameCodec.encode(game);
+        Assertions.assertEquals(20 + 2 + 4 * 2, encoded.length, "Each move since the last capture should take 2 bytes");
+        var decoded = ChessGameCodec.decode(encoded);
+        assertSameGame(game, decoded);
+        Assertions.assertEquals(ChessBoard.ALL_CASTLING, decoded.historyCastling(), "Rights before the moves were lost");
+
+        //a move that cannot be taken back from the stored position is refused
+        encoded[encoded.length - 2] = 0;
+        encoded[encoded.length - 1] = 8;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(encoded));
+    }
+
+    @Test
+    @DisplayName("Fullmove number")
+    public void fullmoveNumber() {
+        String fen = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 3 42";
+        var decoded = ChessGameCodec.decode(ChessGameCodec.encode(Fen.parse(fen)));
+        Assertions.assertEquals(42, decoded.getFullmoveNumber());
+        Assertions.assertEquals(fen, decoded.toFen());
+    }
+
+    @Test
+    @DisplayName("Odd number of pieces")
+    public void oddPieces() {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | |R|
+                | | | | |K| | | |
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertSameGame(game, ChessGameCodec.decode(ChessGameCodec.encode(game)));
+    }
+
+    @Test
+    @DisplayName("Unknown versions are refused")
+    public void unknownVersion() {
+        byte[] encoded = ChessGameCodec.encode(new ChessGame());
+        encoded[0] = 99;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(encoded));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGameCodec.decode(Arrays.copyOf(ChessGameCodec.encode(new ChessGame()), 15)));
+    }
+
+    static private void assertSameGame(ChessGame expected, ChessGame actual) {
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expected.getPositionKey(), actual.getPositionKey(), "Rights or turn were not kept");
+        Assertions.assertEquals(expected.getHalfmoveClock(), actual.getHalfmoveClock());
+        Assertions.assertEquals(expected.getFullmoveNumber(), actual.getFullmoveNumber());
+        Assertions.assertArrayEquals(expected.history(), actual.history());
+    }
+}
@@ -0,0 +1,91 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static chess.EngineTestUtilities.move;
+import static passoff.chess.TestUtilities.loadBoard;
+
+/**
+ * Checks threefold repetition, the fifty-move rule and insufficient material
+ */
+public class DrawTests {
+
+    @Test
+    @DisplayName("Knights shuffling back and forth repeat the start")
+    public void threefoldRepetition() throws InvalidMoveException {
+        var game = new ChessGame();
+        for (int round = 1; round <= 2; round++) {
+            Assertions.assertFalse(game.isThreefoldRepetition(), "Repetition found too early in round " + round);
+            shuffleKnights(game);
+        }
+        Assertions.assertTrue(game.isThreefoldRepetition(), "Third time at the start was not a repetition");
+        Assertions.assertTrue(game.isDraw());
+        Assertions.assertEquals(8, game.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("A pawn move starts the count over")
+    public void pawnMoveResets() throws InvalidMoveException {
+        var game = new ChessGame();
+        shuffleKnights(game);
+        shuffleKnights(game);
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 5, 5, 5));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+
+        shuffleKnights(game);
+        Assertions.assertFalse(game.isThreefoldRepetition(), "Positions before the pawn moves were counted");
+        shuffleKnights(game);
+        Assertions.assertTrue(game.isThreefoldRepetition(), "Third time after the pawn moves was not a repetition");
+    }
+
+    @Test
+    @DisplayName("Fifty moves without a capture or pawn move")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | |R|
+                | | | | |K| | | |
+                """));
+        int[][] tour = {{2, 8, 3, 8}, {8, 5, 8, 4}, {3, 8, 2, 8}, {8, 4, 8, 5}};
+        for (int ply = 0; ply < 100; ply++) {
+            Assertions.assertFalse(game.isFiftyMoveRule(), "Fifty-move rule claimed at ply " + ply);
+            int[] step = tour[ply % tour.length];
+            game.makeMove(move(step[0], step[1], step[2], step[3]));
+        }
+        Assertions.assertTrue(game.isFiftyMoveRule());
+    }
+
+    @Test
+    @DisplayName("Insufficient material")
+    public void insufficientMaterial() {
+        Assertions.assertFalse(new ChessGame().isInsufficientMaterial());
+        Assertions.assertTrue(material("|K| | | | | |k| |").isInsufficientMaterial(), "Kings alone");
+        Assertions.assertTrue(material("|K| |N| | | |k| |").isInsufficientMaterial(), "King and knight");
+        Assertions.assertTrue(material("|K|B| |b| | |k| |").isInsufficientMaterial(), "Bishops on one color");
+        Assertions.assertFalse(material("|K|B| | |b| |k| |").isInsufficientMaterial(), "Bishops on both colors");
+        Assertions.assertFalse(material("|K| |N| |n| |k| |").isInsufficientMaterial(), "Knight against knight");
+        Assertions.assertFalse(material("|K| | |R| | |k| |").isInsufficientMaterial(), "King and rook");
+    }
+
+    static private void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(3, 6, 1, 7));
+        game.makeMove(move(6, 6, 8, 7));
+    }
+
+    static private ChessGame material(String row) {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("| | | | | | | | |\n".repeat(7) + row + "\n"));
+        return game;
+    }
+}
@@ -0,0 +1,50 @@
+package chess;
+
+import java.util.Random;
+
+/**
+ * Helpers shared by the engine tests in this package. They sit beside the tests rather than in
+ * {@link passoff.chess.TestUtilities} because they reach into the package-private move generator.
+ */
+public class EngineTestUtilities {
+    static final int RANDOM_GAMES = 20;
+    static final int RANDOM_PLIES = 120;
+    //a fixed seed means every run plays the same games
+    static final long RANDOM_SEED = 240;
+
+    /**
+     * Looks at a game before a random move is made in it
+     */
+    interface PlyCheck {
+        /**
+         * @param game  the game, not yet changed by this ply
+         * @param legal every legal move for the team to move, generated from scratch on a copy of the board
+         * @param where the game and ply number, for failure messages
+         */
+        void check(ChessGame game, MoveList legal, String where) throws InvalidMoveException;
+    }
+
+    /**
+     * Plays the same random games on every run, calling check before each ply. A game ends after
+     * {@link #RANDOM_PLIES} plies or when the team to move has no legal moves.
+     */
+    static void playRandomGames(PlyCheck check) throws InvalidMoveException {
+        var random = new Random(RANDOM_SEED);
+        for (int gameNumber = 0; gameNumber < RANDOM_GAMES; gameNumber++) {
+            var game = new ChessGame();
+            for (int ply = 0; ply < RANDOM_PLIES; ply++) {
+                var legal = new MoveList();
+                new LegalMoveGenerator().prepare(game.getBoard().copy(), game.getTeamTurn()).generate(legal);
+                check.check(game, legal, "game " + gameNumber + " at ply " + ply);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(PackedMove.toChessMove(legal.get(random.nextInt(legal.size()))));
+            }
+        }
+    }
+
+    static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
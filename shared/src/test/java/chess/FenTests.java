@@ -0,0 +1,130 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static chess.EngineTestUtilities.move;
+
+/**
+ * Checks reading and writing FEN, and running EPD perft suites
+ */
+public class FenTests {
+    static private final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Starting position")
+    public void startingPosition() {
+        var game = Fen.parse(Fen.START);
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(new ChessGame().getPositionKey(), game.getPositionKey());
+        Assertions.assertEquals(Fen.START, new ChessGame().toFen());
+    }
+
+    @Test
+    @DisplayName("Written after moves and read back")
+    public void afterMoves() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 3, 5, 3));
+        game.makeMove(move(1, 7, 3, 6));
+
+        String fen = game.toFen();
+        Assertions.assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2", fen);
+        var read = ChessGame.fromFen(fen);
+        Assertions.assertEquals(game.getPositionKey(), read.getPositionKey());
+        Assertions.assertEquals(1, read.getHalfmoveClock());
+        Assertions.assertEquals(2, read.getFullmoveNumber());
+    }
+
+    @Test
+    @DisplayName("En passant square")
+    public void enPassant() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(4, 5, 5, 5));
+        game.makeMove(move(7, 4, 5, 4));
+
+        var read = Fen.parse("rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3");
+        Assertions.assertEquals(game.getPositionKey(), read.getPositionKey(), "Key differs from the played game");
+        Assertions.assertTrue(read.validMoves(new ChessPosition(5, 5)).contains(move(5, 5, 6, 4)),
+                "En passant capture was lost");
+
+        //nothing can capture on e3, so the square is dropped like it is after playing the move
+        var noCapture = Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        Assertions.assertEquals(-1, noCapture.getBoard().enPassantSquare());
+    }
+
+    @Test
+    @DisplayName("Castling rights without a king and rook at home are dropped")
+    public void castlingRights() {
+        var game = Fen.parse("4k3/8/8/8/8/8/8/R3K3 w KQkq -");
+        Assertions.assertEquals(ChessBoard.WHITE_QUEENSIDE, game.getBoard().castlingRights());
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Games with the same pieces and turn are equal and hash alike")
+    public void equalGamesHashAlike() {
+        var castling = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        var noCastling = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1");
+        Assertions.assertNotEquals(castling.getPositionKey(), noCastling.getPositionKey());
+        Assertions.assertEquals(castling, noCastling);
+        Assertions.assertEquals(castling.hashCode(), noCastling.hashCode(), "Equal games must hash alike");
+    }
+
+    @Test
+    @DisplayName("One game reused for many positions")
+    public void parseInto() {
+        var game = new ChessGame();
+        Fen.parseInto(KIWIPETE, game);
+        Assertions.assertEquals(48, new Perft(game).perft(1));
+        Fen.parseInto(Fen.START, game);
+        Assertions.assertEquals(20, new Perft(game).perft(1));
+        Assertions.assertEquals(new ChessGame().getPositionKey(), game.getPositionKey());
+    }
+
+    @Test
+    @DisplayName("Invalid FEN is refused")
+    public void invalid() {
+        String[] invalid = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e9 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - zero 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        };
+        for (String fen : invalid) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("EPD perft suite")
+    public void epdSuite() throws IOException {
+        String epd = """
+                # comment lines and blank lines are skipped
+
+                rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - ;D1 20 ;D2 400 ;D3 8902 ;D4 197281
+                r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - ;D1 48 ;D2 2039 ;D3 97862
+                8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - id "position; 3"; D1 14; D2 191; D3 2812
+                r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - hmvc 0; fmvn 1; D1 6; D2 264
+                rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - ;D1 44 ;D2 1486 ;D3 62000
+                """;
+        var suite = new EpdSuite(3);
+        var failures = suite.run(new StringReader(epd));
+
+        Assertions.assertEquals(5, suite.getPositions());
+        Assertions.assertEquals(14, suite.getChecks(), "Depth 4 should have been skipped");
+        Assertions.assertEquals(1, failures.size(), "Only the wrong count should fail");
+        Assertions.assertEquals(new EpdSuite.Failure(7, epd.lines().toList().get(6), 3, 62000, 62379), failures.get(0));
+    }
+}
@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static chess.EngineTestUtilities.move;
+
+/**
+ * Checks reading and writing moves in UCI and standard algebraic notation
+ */
+public class NotationTests {
+
+    @Test
+    @DisplayName("UCI")
+    public void uci() {
+        var promotion = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 4), ChessPiece.PieceType.KNIGHT);
+        Assertions.assertEquals("e7d8n", promotion.toUci());
+        Assertions.assertEquals(promotion, ChessMove.parseUci("e7d8n"));
+        Assertions.assertEquals(move(2, 5, 4, 5), ChessMove.parseUci("e2e4"));
+
+        for (String invalid : new String[]{"", "e2", "e2e9", "i2e4", "e7e8k", "e2e4qq"}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.parseUci(invalid), invalid);
+        }
+    }
+
+    @Test
+    @DisplayName("Disambiguation by file, rank or both")
+    public void disambiguation() {
+        var game = Fen.parse("1k6/8/8/8/Q3Q3/8/8/Q6K w - - 0 1");
+        Assertions.assertEquals("Q1d4", move(1, 1, 4, 4).toSan(game));
+        Assertions.assertEquals("Qa4d4", move(4, 1, 4, 4).toSan(game));
+        Assertions.assertEquals("Qed4", move(4, 5, 4, 4).toSan(game));
+
+        Assertions.assertEquals(move(1, 1, 4, 4), ChessMove.parseSan("Q1d4", game));
+        Assertions.assertEquals(move(4, 1, 4, 4), ChessMove.parseSan("Qa4xd4", game));
+        Assertions.assertEquals(move(4, 5, 4, 4), ChessMove.parseSan("Qed4", game));
+        var ambiguous = Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.parseSan("Qd4", game));
+        Assertions.assertTrue(ambiguous.getMessage().startsWith("Ambiguous"), ambiguous.getMessage());
+    }
+
+    @Test
+    @DisplayName("Promotion, check and checkmate")
+    public void promotionAndCheck() {
+        var promotion = Fen.parse("3r3k/4P3/8/8/8/8/8/K7 w - - 0 1");
+        var queen = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 4), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("exd8=Q+", queen.toSan(promotion));
+        Assertions.assertEquals(queen, ChessMove.parseSan("exd8=Q+", promotion));
+        Assertions.assertEquals(queen, ChessMove.parseSan("exd8Q", promotion));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.parseSan("exd8", promotion));
+
+        var backRank = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Assertions.assertEquals("Ra8#", move(1, 1, 8, 1).toSan(backRank));
+        Assertions.assertEquals(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1").getPositionKey(),
+                backRank.getPositionKey(), "Writing the move changed the game");
+    }
+
+    @Test
+    @DisplayName("Castling and en passant")
+    public void specialMoves() {
+        var castling = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1");
+        Assertions.assertEquals(move(8, 5, 8, 3), ChessMove.parseSan("O-O-O", castling));
+        Assertions.assertEquals(move(8, 5, 8, 7), ChessMove.parseSan("0-0", castling));
+        Assertions.assertEquals("O-O-O", move(8, 5, 8, 3).toSan(castling));
+
+        var enPassant = Fen.parse("rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3");
+        Assertions.assertEquals(move(5, 5, 6, 4), ChessMove.parseSan("exd6", enPassant));
+        Assertions.assertEquals("exd6", move(5, 5, 6, 4).toSan(enPassant));
+    }
+
+    @Test
+    @DisplayName("Illegal moves are refused")
+    public void illegal() {
+        var game = new ChessGame();
+        for (String invalid : new String[]{"e5", "Nf4", "O-O", "Kx", "Zf3", "e4e5"}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.parseSan(invalid, game), invalid);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> move(2, 5, 5, 5).toSan(game));
+    }
+}
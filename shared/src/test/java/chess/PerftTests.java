@@ -0,0 +1,161 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+/**
+ * Checks leaf node counts against the published perft results for standard reference positions
+ * (https://www.chessprogramming.org/Perft_Results)
+ */
+public class PerftTests {
+    static private final long[] START_POSITION = {20, 400, 8902, 197281, 4865609};
+    static private final long[] KIWIPETE = {48, 2039, 97862};
+    static private final long[] POSITION_3 = {14, 191, 2812, 43238};
+    static private final long[] POSITION_4 = {6, 264, 9467};
+    static private final long[] POSITION_5 = {44, 1486, 62379};
+    static private final long[] POSITION_6 = {46, 2079, 89890};
+
+    @Test
+    @DisplayName("Starting position")
+    public void startingPosition() {
+        assertPerft(new ChessGame(), START_POSITION);
+    }
+
+    @Test
+    @DisplayName("Kiwipete: castling, en passant and promotions")
+    public void kiwipete() {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("""
+                |r| | | |k| | |r|
+                |p| |p|p|q|p|b| |
+                |b|n| | |p|n|p| |
+                | | | |P|N| | | |
+                | |p| | |P| | | |
+                | | |N| | |Q| |p|
+                |P|P|P|B|B|P|P|P|
+                |R| | | |K| | |R|
+                """));
+        assertPerft(game, KIWIPETE);
+    }
+
+    @Test
+    @DisplayName("Position 3: pins along the fourth row")
+    public void position3() {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("""
+                | | | | | | | | |
+                | | |p| | | | | |
+                | | | |p| | | | |
+                |K|P| | | | | |r|
+                | |R| | | |p| |k|
+                | | | | | | | | |
+                | | | | |P| |P| |
+                | | | | | | | | |
+                """));
+        assertPerft(game, POSITION_3);
+    }
+
+    @Test
+    @DisplayName("Position 4: black castling rights only")
+    public void position4() {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("""
+                |r| | | |k| | |r|
+                |P|p|p|p| |p|p|p|
+                | |b| | | |n|b|N|
+                |n|P| | | | | | |
+                |B|B|P| |P| | | |
+                |q| | | | |N| | |
+                |P|p| |P| | |P|P|
+                |R| | |Q| |R|K| |
+                """));
+        assertPerft(game, POSITION_4);
+    }
+
+    @Test
+    @DisplayName("Position 5: promotion with check")
+    public void position5() {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("""
+                |r|n|b|q| |k| |r|
+                |p|p| |P|b|p|p|p|
+                | | |p| | | | | |
+                | | | | | | | | |
+                | | |B| | | | | |
+                | | | | | | | | |
+                |P|P|P| |N|n|P|P|
+                |R|N|B|Q|K| | |R|
+                """));
+        assertPerft(game, POSITION_5);
+    }
+
+    @Test
+    @DisplayName("Position 6: symmetrical middlegame")
+    public void position6() {
+        var game = new ChessGame();
+        game.setBoard(loadBoard("""
+                |r| | | | |r|k| |
+                | |p|p| |q|p|p|p|
+                |p| |n|p| |n| | |
+                | | |b| |p| |B| |
+                | | |B| |P| |b| |
+                |P| |N|P| |N| | |
+                | |P|P| |Q|P|P|P|
+                |R| | | | |R|K| |
+                """));
+        assertPerft(game, POSITION_6);
+    }
+
+    @Test
+    @DisplayName("Divide adds up to the total")
+    public void divideMatchesTotal() {
+        var perft = new Perft(new ChessGame());
+        var divide = perft.divide(3);
+
+        Assertions.assertEquals(20, divide.size(), "Wrong number of root moves");
+        Assertions.assertEquals(perft.perft(3), divide.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(600L, divide.get(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5))));
+    }
+
+    @Test
+    @DisplayName("Counting leaves the game untouched")
+    public void gameUnchanged() {
+        var game = new ChessGame();
+        var before = game.getBoard().copy();
+        new Perft(game).perft(3);
+
+        Assertions.assertEquals(before, game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Parallel counts match sequential counts")
+    public void parallelMatchesSequential() {
+        var game = new ChessGame();
+        var pool = new ForkJoinPool(4);
+        try {
+            for (int split = 1; split <= 3; split++) {
+                var parallel = new ParallelPerft(game, pool, split);
+                Assertions.assertEquals(START_POSITION[3], parallel.perft(4), "Wrong node count splitting " + split + " plies");
+                Assertions.assertEquals(START_POSITION[3],
+                        parallel.getThreadNodes().values().stream().mapToLong(Long::longValue).sum(),
+                        "Per-thread counts do not add up");
+            }
+            Assertions.assertEquals(new Perft(game).divide(3), new ParallelPerft(game, pool, 2).divide(3));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static private void assertPerft(ChessGame game, long[] expected) {
+        var perft = new Perft(game);
+        for (int depth = 1; depth <= expected.length; depth++) {
+            Assertions.assertEquals(expected[depth - 1], perft.perft(depth), "Wrong node count at depth " + depth);
+        }
+    }
+}
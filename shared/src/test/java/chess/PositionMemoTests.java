@@ -0,0 +1,63 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Checks that answers a game remembers for a position are forgotten as soon as the position changes
+ */
+public class PositionMemoTests {
+
+    @Test
+    @DisplayName("Remembered moves are reused until a move is made")
+    public void movesForgottenAfterMove() throws InvalidMoveException {
+        var game = new ChessGame();
+        var knight = new ChessPosition(1, 2);
+        var moves = game.validMoves(knight);
+
+        Assertions.assertSame(moves, game.validMoves(knight), "Unchanged position should reuse its moves");
+        Assertions.assertEquals(Set.of(new ChessMove(knight, new ChessPosition(3, 1), null),
+                new ChessMove(knight, new ChessPosition(3, 3), null)), moves, "Moves should compare as a set");
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        Assertions.assertEquals(3, game.validMoves(knight).size(), "Moves were not updated after a move");
+    }
+
+    @Test
+    @DisplayName("All valid moves match the moves of each square")
+    public void allValidMovesMatchSquares() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        var all = game.allValidMoves();
+        Assertions.assertEquals(20, all.values().stream().mapToInt(Collection::size).sum(), "Wrong number of moves");
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece == null || piece.getTeamColor() != ChessGame.TeamColor.BLACK) {
+                    Assertions.assertFalse(all.containsKey(position), "Unexpected moves for " + position);
+                } else if (!game.validMoves(position).isEmpty()) {
+                    Assertions.assertSame(all.get(position), game.validMoves(position),
+                            "Batch moves were not shared with validMoves for " + position);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Changing the board directly is noticed")
+    public void statusForgottenAfterBoardChange() {
+        var game = new ChessGame();
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+
+        game.getBoard().removePiece(new ChessPosition(2, 5));
+        game.getBoard().addPiece(new ChessPosition(3, 5),
+                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.WHITE), "Check status was not updated");
+    }
+}
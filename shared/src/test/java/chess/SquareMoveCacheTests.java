@@ -0,0 +1,34 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static chess.EngineTestUtilities.playRandomGames;
+
+/**
+ * Plays random games and checks that moves built from remembered targets always match moves generated from scratch
+ */
+public class SquareMoveCacheTests {
+
+    @Test
+    @DisplayName("Remembered targets stay correct through random games")
+    public void randomGames() throws InvalidMoveException {
+        playRandomGames((game, legal, where) -> {
+            for (int square = 0; square < 64; square++) {
+                var position = ChessPosition.of(square);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece == null) {
+                    continue;
+                }
+                var expected = new MoveList();
+                new LegalMoveGenerator().prepare(game.getBoard().copy(), piece.getTeamColor())
+                        .generate(square, expected);
+                Assertions.assertEquals(new HashSet<>(expected.toCollection()),
+                        new HashSet<>(game.validMoves(position)), "Wrong moves for " + position + " in " + where);
+            }
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks reading, validating and writing PGN
+ */
+public class PgnTests {
+    static private final String OPERA_MOVES = "e4 e5 Nf3 d6 d4 Bg4 dxe5 Bxf3 Qxf3 dxe5 Bc4 Nf6 Qb3 Qe7 Nc3 c6 "
+            + "Bg5 b5 Nxb5 cxb5 Bxb5+ Nbd7 O-O-O Rd8 Rxd7 Rxd7 Rd1 Qe6 Bxd7+ Nxd7 Qb8+ Nxb8 Rd8#";
+    static private final String OPERA_GAME = """
+            [Event "Paris"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [Round "?"]
+            [White "Morphy, Paul"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 {a weak move} 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6
+            7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 $2 10. Nxb5! cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8
+            13. Rxd7 Rxd7 (13... Nxd7 14. Bxd7+) 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8
+            17. Rd8# 1-0
+            """;
+    static private final String SPECIAL_MOVES = """
+            [White "A \\"quoted\\" name"]
+
+            1.e4 Nf6 2.e5 d5 3.exd6 e6 4.dxc7 Qd7 5.cxb8=Q Rxb8 *
+            """;
+    static private final String ILLEGAL = """
+            [Event "Illegal"]
+
+            1. e4 e5 2. Ke3 Nc6 0-1
+            """;
+
+    @Test
+    @DisplayName("Tags and moves are read, skipping comments, variations and annotations")
+    public void read() throws IOException {
+        var reader = new PgnReader(new StringReader(OPERA_GAME + "\n" + SPECIAL_MOVES));
+
+        PgnGame opera = reader.next();
+        Assertions.assertEquals("Morphy, Paul", opera.tag("White"));
+        Assertions.assertEquals(7, opera.tags().size());
+        Assertions.assertEquals(OPERA_MOVES, opera.moves());
+        Assertions.assertEquals("1-0", opera.result());
+
+        PgnGame special = reader.next();
+        Assertions.assertEquals("A \"quoted\" name", special.tag("White"));
+        Assertions.assertEquals("e4 Nf6 e5 d5 exd6 e6 dxc7 Qd7 cxb8=Q Rxb8", special.moves());
+        Assertions.assertEquals("*", special.result());
+
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("A game without a result ends at the next tag section")
+    public void missingResult() throws IOException {
+        var reader = new PgnReader(new StringReader("[Event \"a\"]\n\n1. e4 e5\n\n[Event \"b\"]\n\n1. d4 *\n"));
+        Assertions.assertEquals("e4 e5", reader.next().moves());
+        Assertions.assertEquals("d4", reader.next().moves());
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("Games are replayed across workers and problems reported in order")
+    public void validate() throws IOException, InterruptedException {
+        String pgn = (OPERA_GAME + "\n" + ILLEGAL + "\n" + SPECIAL_MOVES + "\n").repeat(20);
+        var report = new PgnValidator(3).validate(new PgnReader(new StringReader(pgn)));
+
+        Assertions.assertEquals(60, report.games());
+        Assertions.assertEquals(40, report.valid());
+        Assertions.assertEquals(20, report.invalid().size());
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(new PgnValidator.Invalid(3L * i + 2, 3, "Ke3", "Not a legal move: Ke3"),
+                    report.invalid().get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Moves are written back in SAN with move numbers")
+    public void write() throws IOException, InvalidMoveException {
+        PgnGame opera = new PgnReader(new StringReader(OPERA_GAME)).next();
+        List<ChessMove> moves = replay(opera.moves());
+
+        var text = new StringWriter();
+        try (var writer = new PgnWriter(text)) {
+            writer.write(opera.tags(), moves);
+        }
+        String written = text.toString();
+        Assertions.assertTrue(written.startsWith("[Event \"Paris\"]\n"), written);
+        Assertions.assertTrue(written.contains("\n\n1. e4 e5 2. Nf3 d6 3. d4 Bg4 "), written);
+        Assertions.assertTrue(written.endsWith("17. Rd8# 1-0\n\n"), written);
+        written.lines().forEach(line -> Assertions.assertTrue(line.length() <= 80, "Line too long: " + line));
+
+        PgnGame read = new PgnReader(new StringReader(written)).next();
+        Assertions.assertEquals(OPERA_MOVES, read.moves());
+        Assertions.assertEquals(opera.tags(), read.tags());
+    }
+
+    @Test
+    @DisplayName("Games starting from a FEN tag are numbered from it")
+    public void fenTag() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("FEN", "4k3/8/8/8/8/8/8/4K2R b K - 0 12");
+        var text = new StringWriter();
+        try (var writer = new PgnWriter(text)) {
+            writer.write(new PgnGame(tags, "Kd7 O-O", "*"));
+        }
+        Assertions.assertTrue(text.toString().endsWith("\n12... Kd7 13. O-O *\n\n"), text.toString());
+
+        PgnGame read = new PgnReader(new StringReader(text.toString())).next();
+        Assertions.assertNull(PgnValidator.replay(1, read, new ChessGame()));
+    }
+
+    static private List<ChessMove> replay(String moves) throws InvalidMoveException {
+        var game = new ChessGame();
+        List<ChessMove> played = new ArrayList<>();
+        for (String san : moves.split(" ")) {
+            ChessMove move = ChessMove.parseSan(san, game);
+            game.makeMove(move);
+            played.add(move);
+        }
+        return played;
+    }
+}
@@ -0,0 +1,126 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import com.google.gson.JsonSyntaxException;
+import model.AuthData;
+import model.GameData;
+import model.JoinRequest;
+import model.UserData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+/**
+ * Checks that the shared Gson writes the short forms and reads back what it wrote
+ */
+public class SerializerTests {
+
+    @Test
+    @DisplayName("Chess types are written as short strings")
+    public void chessTypes() {
+        var move = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("\"e7e8q\"", Serializer.GSON.toJson(move));
+        Assertions.assertEquals(move, Serializer.GSON.fromJson("\"e7e8q\"", ChessMove.class));
+        Assertions.assertEquals("\"n\"",
+                Serializer.GSON.toJson(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT)));
+        Assertions.assertEquals("\"c3\"", Serializer.GSON.toJson(new ChessPosition(3, 3)));
+
+        var board = new ChessBoard();
+        board.resetBoard();
+        String json = Serializer.GSON.toJson(board);
+        Assertions.assertEquals("\"rnbqkbnrpppppppp" + ".".repeat(32) + "PPPPPPPPRNBQKBNR KQkq -\"", json);
+        Assertions.assertEquals(board, Serializer.GSON.fromJson(json, ChessBoard.class));
+    }
+
+    @Test
+    @DisplayName("Moves off the board still round trip")
+    public void offBoardMove() {
+        var move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(9, 5), null);
+        Assertions.assertEquals(move, Serializer.GSON.fromJson(Serializer.GSON.toJson(move), ChessMove.class));
+    }
+
+    @Test
+    @DisplayName("Games keep their turn, rights and history")
+    public void game() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+
+        var data = new GameData(7, "white", null, "game", game);
+        String json = Serializer.GSON.toJson(data);
+        Assertions.assertTrue(json.contains("\"historyFrom\":\"KQkq -\",\"history\":[\"g1f3\",\"g8f6\"]"), json);
+        var read = Serializer.GSON.fromJson(json, GameData.class);
+        Assertions.assertEquals(data, read);
+        Assertions.assertEquals(game.getPositionKey(), read.game().getPositionKey());
+        Assertions.assertEquals(game.getHalfmoveClock(), read.game().getHalfmoveClock());
+        Assertions.assertEquals(2, read.game().getFullmoveNumber());
+
+        String fen = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 3 42";
+        json = Serializer.GSON.toJson(ChessGame.fromFen(fen));
+        Assertions.assertTrue(json.contains("\"fullmoveNumber\":42"), json);
+        Assertions.assertEquals(fen, Serializer.GSON.fromJson(json, ChessGame.class).toFen());
+    }
+
+    @Test
+    @DisplayName("Games saved by reflective Gson before the adapters still load")
+    public void legacyGame() {
+        //written by the original ChessGame after 1. e4 Nc6 2. Ke2
+        String json = "{\"turn\":\"BLACK\",\"board\":{\"board\":[[{\"color\":\"WHITE\",\"type\":\"ROOK\"},"
+                + "{\"color\":\"WHITE\",\"type\":\"KNIGHT\"},{\"color\":\"WHITE\",\"type\":\"BISHOP\"},"
+                + "{\"color\":\"WHITE\",\"type\":\"QUEEN\"},null,{\"color\":\"WHITE\",\"type\":\"BISHOP\"},"
+                + "{\"color\":\"WHITE\",\"type\":\"KNIGHT\"},{\"color\":\"WHITE\",\"type\":\"ROOK\"}],"
+                + "[{\"color\":\"WHITE\",\"type\":\"PAWN\"},{\"color\":\"WHITE\",\"type\":\"PAWN\"},"
+                + "{\"color\":\"WHITE\",\"type\":\"PAWN\"},{\"color\":\"WHITE\",\"type\":\"PAWN\"},"
+                + "{\"color\":\"WHITE\",\"type\":\"KING\"},{\"color\":\"WHITE\",\"type\":\"PAWN\"},"
+                + "{\"color\":\"WHITE\",\"type\":\"PAWN\"},{\"color\":\"WHITE\",\"type\":\"PAWN\"}],"
+                + "[null,null,null,null,null,null,null,null],"
+                + "[null,null,null,null,{\"color\":\"WHITE\",\"type\":\"PAWN\"},null,null,null],"
+                + "[null,null,null,null,null,null,null,null],"
+                + "[null,null,{\"color\":\"BLACK\",\"type\":\"KNIGHT\"},null,null,null,null,null],"
+                + "[{\"color\":\"BLACK\",\"type\":\"PAWN\"},{\"color\":\"BLACK\",\"type\":\"PAWN\"},"
+                + "{\"color\":\"BLACK\",\"type\":\"PAWN\"},{\"color\":\"BLACK\",\"type\":\"PAWN\"},"
+                + "{\"color\":\"BLACK\",\"type\":\"PAWN\"},{\"color\":\"BLACK\",\"type\":\"PAWN\"},"
+                + "{\"color\":\"BLACK\",\"type\":\"PAWN\"},{\"color\":\"BLACK\",\"type\":\"PAWN\"}],"
+                + "[{\"color\":\"BLACK\",\"type\":\"ROOK\"},null,{\"color\":\"BLACK\",\"type\":\"BISHOP\"},"
+                + "{\"color\":\"BLACK\",\"type\":\"QUEEN\"},{\"color\":\"BLACK\",\"type\":\"KING\"},"
+                + "{\"color\":\"BLACK\",\"type\":\"BISHOP\"},{\"color\":\"BLACK\",\"type\":\"KNIGHT\"},"
+                + "{\"color\":\"BLACK\",\"type\":\"ROOK\"}]]}}";
+
+        var read = Serializer.GSON.fromJson(json, ChessGame.class);
+        Assertions.assertEquals("r1bqkbnr/pppppppp/2n5/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 0 1", read.toFen());
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                read.getBoard().getPiece(new ChessPosition(2, 5)));
+    }
+
+    @Test
+    @DisplayName("Model records keep their field names and leave out nulls")
+    public void models() {
+        Assertions.assertEquals("{\"authToken\":\"token\",\"username\":\"user\"}",
+                Serializer.GSON.toJson(new AuthData("token", "user")));
+        Assertions.assertEquals("{\"username\":\"user\",\"password\":\"pass\"}",
+                Serializer.GSON.toJson(new UserData("user", "pass", null)));
+        Assertions.assertEquals(new JoinRequest("WHITE", 3),
+                Serializer.GSON.fromJson("{\"playerColor\":\"WHITE\",\"gameID\":3}", JoinRequest.class));
+        Assertions.assertEquals("{\"games\":[{\"gameID\":1,\"gameName\":\"g\"}]}",
+                Serializer.GSON.toJson(Map.of("games", new GameData[]{new GameData(1, null, null, "g", null)})));
+    }
+
+    @Test
+    @DisplayName("Game IDs may be numeric strings, anything else is a JSON error")
+    public void gameIDs() {
+        Assertions.assertEquals(4, Serializer.GSON.fromJson("{\"gameID\":\"4\"}", GameData.class).gameID());
+        Assertions.assertEquals(new JoinRequest("BLACK", 5),
+                Serializer.GSON.fromJson("{\"playerColor\":\"BLACK\",\"gameID\":\"5\"}", JoinRequest.class));
+        Assertions.assertThrows(JsonSyntaxException.class,
+                () -> Serializer.GSON.fromJson("{\"gameID\":\"four\"}", GameData.class));
+        Assertions.assertThrows(JsonSyntaxException.class,
+                () -> Serializer.GSON.fromJson("{\"gameID\":1.5}", JoinRequest.class));
+    }
+}